@@ -0,0 +1,141 @@
+package com.documentchecker.documcheck.benchmark;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.ByteArrayResource;
+
+import com.documentchecker.documcheck.service.DocxToHtmlConverter;
+import com.documentchecker.documcheck.service.PictureStore;
+import com.documentchecker.documcheck.service.TextMeasurer;
+import com.documentchecker.documcheck.service.docx.DocxDocument;
+import com.documentchecker.documcheck.service.docx.DocxEngine;
+import com.documentchecker.documcheck.service.docx.DocxParagraph;
+import com.documentchecker.documcheck.service.docx.DocxRun;
+import com.documentchecker.documcheck.service.docx.DocxTable;
+import com.documentchecker.documcheck.service.rule.FormatColumns;
+import com.documentchecker.documcheck.service.rule.GostRuleEngine;
+import com.documentchecker.documcheck.service.rule.GostRuleSet;
+import com.documentchecker.documcheck.service.rule.RuleScope;
+import com.documentchecker.documcheck.service.rule.RuleViolation;
+import com.documentchecker.documcheck.service.rule.RuleViolations;
+
+/**
+ * Фазы проверки по отдельности: parse - только чтение docx выбранным движком, check - правила
+ * ГОСТ по уже разобранным элементам (checkColumns - то же по столбцам FormatColumns), render - конвертер на уже разобранных элементах
+ * (проверки в нём идут вместе с вёрсткой), convert - весь путь от байтов до HTML.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConverterBenchmark {
+
+    @Param({"100", "1000"})
+    public int paragraphs;
+
+    @Param({"1", "4"})
+    public int runsPerParagraph;
+
+    @Param({"20"})
+    public int tableEvery;
+
+    @Param({"2"})
+    public int listDepth;
+
+    @Param({"25"})
+    public int imageEvery;
+
+    @Param({"POI", "STAX"})
+    public DocxEngine engine;
+
+    private ByteArrayResource docx;
+    private DocxDocument body;
+    private GostRuleEngine ruleEngine;
+    private GostRuleSet ruleSet;
+    private FormatColumns columns;
+    private DocxToHtmlConverter converter;
+
+    @Setup
+    public void setUp() throws Exception {
+        docx = new ByteArrayResource(SyntheticDocx.generate(paragraphs, runsPerParagraph, tableEvery, 7, listDepth, imageEvery));
+        body = new DocxDocument();
+        engine.reader().read(docx, body);
+        ruleEngine = GostRuleEngine.builtIn();
+        ruleSet = ruleEngine.ruleSet(14, 1.25, 1.5);
+        columns = FormatColumns.of(body.elements());
+        converter = new DocxToHtmlConverter(ruleEngine, new PictureStore(64L * 1024 * 1024), new TextMeasurer());
+    }
+
+    @Benchmark
+    public DocxDocument parse() throws Exception {
+        DocxDocument parsed = new DocxDocument();
+        engine.reader().read(docx, parsed);
+        return parsed;
+    }
+
+    @Benchmark
+    public void check(Blackhole blackhole) {
+        List<RuleViolation> errors = new ArrayList<>();
+        for (Object element : body.elements()) {
+            if (element instanceof DocxParagraph paragraph) {
+                checkParagraph(paragraph, errors);
+            } else {
+                for (var row : ((DocxTable) element).rows()) {
+                    for (var cell : row) {
+                        for (DocxParagraph paragraph : cell) {
+                            checkParagraph(paragraph, errors);
+                        }
+                    }
+                }
+            }
+            blackhole.consume(errors.size());
+            errors.clear();
+        }
+    }
+
+    @Benchmark
+    public RuleViolations checkColumns() {
+        return ruleSet.check(columns);
+    }
+
+    @Benchmark
+    public FormatColumns extractColumns() {
+        return FormatColumns.of(body.elements());
+    }
+
+    private void checkParagraph(DocxParagraph paragraph, List<RuleViolation> errors) {
+        ruleSet.checkParagraph(RuleScope.PARAGRAPH, paragraph, errors);
+        for (DocxRun run : paragraph.runs()) {
+            ruleSet.checkRun(run, errors);
+        }
+    }
+
+    @Benchmark
+    public int render() throws Exception {
+        converter.convertDocxToHtmlWithErrors(docx, 1.25, 1.5, 14, body, Writer.nullWriter());
+        return converter.getFindings().size();
+    }
+
+    @Benchmark
+    public int convert() throws Exception {
+        converter.convertDocxToHtmlWithErrors(docx, 1.25, 1.5, 14, engine, Writer.nullWriter());
+        return converter.getFindings().size();
+    }
+}
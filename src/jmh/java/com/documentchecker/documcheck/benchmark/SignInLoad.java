@@ -0,0 +1,146 @@
+package com.documentchecker.documcheck.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Нагрузка на вход против запущенного приложения: sign-in из threads потоков в течение seconds секунд,
+ * одновременно один поток шлёт /upload. Сначала замеряется /upload без нагрузки (после прогрева), потом под ней.
+ * Печатает входы в секунду, число отказов 429 и задержку /upload (p50, p95, max).
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.main=com.documentchecker.documcheck.benchmark.SignInLoad -Djmh.prof=
+ *     -Djmh.args="http://localhost:8080 10 32"
+ *
+ * Отступ у каждой загрузки свой, чтобы не попадать в кэш результатов (разобранный документ кэшируется).
+ */
+public class SignInLoad {
+
+    private static final String BOUNDARY = "----signinload" + UUID.randomUUID();
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String baseUrl;
+    private final byte[] docx;
+    private final AtomicInteger uploads = new AtomicInteger();
+
+    private SignInLoad(String baseUrl, byte[] docx) {
+        this.baseUrl = baseUrl;
+        this.docx = docx;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+
+        SignInLoad load = new SignInLoad(baseUrl, SyntheticDocx.generate(200, 3, 10, 7, 2, 0));
+        String username = "load-" + System.currentTimeMillis();
+        int signup = load.post("/api/auth/signup", credentials(username));
+        if (signup != 200) {
+            throw new IllegalStateException("signup: HTTP " + signup);
+        }
+
+        // прогрев JIT и кэша разобранного документа, в замер не входит
+        load.uploadFor(seconds * 500L);
+        List<Long> idle = load.uploadFor(seconds * 1000L);
+        report("upload без нагрузки", idle);
+
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long deadline = System.currentTimeMillis() + seconds * 1000L;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.currentTimeMillis() < deadline) {
+                        int status = load.post("/api/auth/signin", credentials(username));
+                        (status == 200 ? ok : status == 429 ? rejected : failed).incrementAndGet();
+                        if (status == 429) {
+                            // как клиент, соблюдающий Retry-After
+                            Thread.sleep(1000);
+                        }
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            }, "signin-" + i);
+            thread.start();
+        }
+        List<Long> loaded = load.uploadFor(seconds * 1000L);
+        done.await();
+
+        System.out.printf(Locale.ROOT, "sign-in: %.1f/с успешно, 429: %d, ошибки: %d (%d потоков, %d с)%n",
+                ok.get() / (double) seconds, rejected.get(), failed.get(), threads, seconds);
+        report("upload под нагрузкой", loaded);
+    }
+
+    private List<Long> uploadFor(long millis) throws Exception {
+        List<Long> latencies = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + millis;
+        while (System.currentTimeMillis() < deadline) {
+            long start = System.nanoTime();
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/upload"))
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(multipart(uploads.incrementAndGet())))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("upload: HTTP " + response.statusCode());
+            }
+            latencies.add((System.nanoTime() - start) / 1_000_000);
+        }
+        return latencies;
+    }
+
+    private int post(String path, String json) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private byte[] multipart(int n) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(docx.length + 1024);
+        field(body, "fontSize", "14");
+        field(body, "indent", String.format(Locale.ROOT, "%.6f", 1.25 + n * 1e-6));
+        field(body, "lineSpacing", "1.5");
+        body.writeBytes(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"load.docx\"\r\n"
+                + "Content-Type: application/vnd.openxmlformats-officedocument.wordprocessingml.document\r\n\r\n")
+                .getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(docx);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+
+    private static void field(ByteArrayOutputStream body, String name, String value) {
+        body.writeBytes(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String credentials(String username) {
+        return "{\"username\":\"" + username + "\",\"password\":\"load-password\"}";
+    }
+
+    private static void report(String title, List<Long> latencies) {
+        if (latencies.isEmpty()) {
+            System.out.println(title + ": нет завершённых запросов");
+            return;
+        }
+        Collections.sort(latencies);
+        System.out.printf(Locale.ROOT, "%s: %d запросов, p50 %d мс, p95 %d мс, max %d мс%n", title, latencies.size(),
+                latencies.get(latencies.size() / 2), latencies.get((int) Math.min(latencies.size() - 1, latencies.size() * 0.95)),
+                latencies.get(latencies.size() - 1));
+    }
+}
@@ -0,0 +1,96 @@
+package com.documentchecker.documcheck.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.documentchecker.documcheck.service.StreamingStyleApplier;
+import com.documentchecker.documcheck.service.StyleApplier;
+
+/**
+ * "Скачать с ГОСТ" по фазам: apply - только StyleApplier на открытом документе
+ * (документ открывается заново перед каждым вызовом и в замер не входит), download - открыть,
+ * применить стили и записать docx целиком, downloadStreaming - то же через StreamingStyleApplier
+ * (переписывается только document.xml, остальное копируется без пересжатия).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StyleApplierBenchmark {
+
+    @Param({"100", "1000"})
+    public int paragraphs;
+
+    @Param({"4"})
+    public int runsPerParagraph;
+
+    private byte[] docx;
+    private Path file;
+    private XWPFDocument document;
+
+    @Setup(Level.Trial)
+    public void generate() throws Exception {
+        docx = SyntheticDocx.generate(paragraphs, runsPerParagraph, 20, 7, 2, 25);
+        // StreamingStyleApplier читает архив с диска, как и сохранённый DocumentStore файл
+        file = Files.createTempFile("styled-benchmark-", ".docx");
+        Files.write(file, docx);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Setup(Level.Invocation)
+    public void open() throws Exception {
+        document = new XWPFDocument(new ByteArrayInputStream(docx));
+    }
+
+    @TearDown(Level.Invocation)
+    public void close() throws Exception {
+        document.close();
+    }
+
+    @Benchmark
+    public XWPFDocument apply() {
+        StyleApplier.applyGostStyles(document, 14);
+        return document;
+    }
+
+    @Benchmark
+    public int download() throws Exception {
+        try (XWPFDocument doc = new XWPFDocument(new ByteArrayInputStream(docx))) {
+            StyleApplier.applyGostStyles(doc, 14);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            doc.write(out);
+            return out.size();
+        }
+    }
+
+    @Benchmark
+    public int downloadStreaming() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingStyleApplier.applyGostStyles(file, 14, out);
+        return out.size();
+    }
+}
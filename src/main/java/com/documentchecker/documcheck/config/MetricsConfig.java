@@ -0,0 +1,44 @@
+package com.documentchecker.documcheck.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.documentchecker.documcheck.service.CheckMetrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+@Configuration
+@RequiredArgsConstructor
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private static final String VIEW_START = MetricsConfig.class.getName() + ".viewStart";
+
+    private final CheckMetrics checkMetrics;
+
+    // Время рендеринга шаблона страницы проверки: postHandle вызывается до Thymeleaf, afterCompletion - после
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                    ModelAndView modelAndView) {
+                if ("POST".equals(request.getMethod())) {
+                    request.setAttribute(VIEW_START, System.nanoTime());
+                }
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                    Exception ex) {
+                if (request.getAttribute(VIEW_START) instanceof Long start) {
+                    checkMetrics.phase(CheckMetrics.PHASE_VIEW, null, System.nanoTime() - start);
+                }
+            }
+        }).addPathPatterns("/upload");
+    }
+}
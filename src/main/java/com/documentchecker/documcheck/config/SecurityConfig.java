@@ -1,5 +1,6 @@
 package com.documentchecker.documcheck.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -14,6 +15,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import com.documentchecker.documcheck.model.Role;
 import com.documentchecker.documcheck.service.UserService;
 
 import lombok.RequiredArgsConstructor;
@@ -26,16 +28,23 @@ public class SecurityConfig {
     private final JwtAuthFilter jwtAuthFilter;
     private final UserService userService;
 
+    // Изменение силы не ломает старые хэши: они пересчитываются при следующем входе
+    @Value("${documcheck.auth.bcrypt-strength:10}")
+    private int bcryptStrength;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/styles.css", "/js/**", "/images/**", "/download-styled").permitAll()
+                .requestMatchers("/styles.css", "/js/**", "/images/**", "/pictures/**", "/download-styled").permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
-                .requestMatchers("/", "/login", "/upload").permitAll()
+                .requestMatchers("/", "/login", "/upload", "/upload/stream", "/upload/recheck").permitAll()
                 
                 .requestMatchers("/h2-console/**").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                // метрики раскрывают размеры кэшей и очередей - только администратору с JWT
+                .requestMatchers("/actuator/**").hasAuthority(Role.ROLE_ADMIN.name())
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session
@@ -54,7 +63,7 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
     @Bean
@@ -62,6 +71,7 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userService.userDetailsService());
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userService);
         return authProvider;
     }
     
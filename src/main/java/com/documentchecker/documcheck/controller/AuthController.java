@@ -4,25 +4,50 @@ import com.documentchecker.documcheck.service.AuthenticationService;
 import com.documentchecker.documcheck.dto.SignInRequest;
 import com.documentchecker.documcheck.dto.SignUpRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthController {
     private final AuthenticationService authenticationService;
 
+    @Value("${documcheck.auth.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
     @PostMapping("/signup")
-    public ResponseEntity<?> signup(@RequestBody SignUpRequest request) {
-        return ResponseEntity.ok(authenticationService.signup(request));
+    public CompletableFuture<ResponseEntity<?>> signup(@RequestBody SignUpRequest request) {
+        return respond(() -> authenticationService.signup(request));
     }
 
     @PostMapping("/signin")
-    public ResponseEntity<?> signin(@RequestBody SignInRequest request) {
-        return ResponseEntity.ok(authenticationService.signin(request));
+    public CompletableFuture<ResponseEntity<?>> signin(@RequestBody SignInRequest request) {
+        return respond(() -> authenticationService.signin(request));
+    }
+
+    // Поток Tomcat освобождается, пока считается хэш; ответ отправляется по завершении задачи
+    private CompletableFuture<ResponseEntity<?>> respond(Supplier<CompletableFuture<?>> call) {
+        try {
+            return call.get().<ResponseEntity<?>>thenApply(ResponseEntity::ok);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
+        }
+    }
+
+    private ResponseEntity<?> busy() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body("Слишком много входов одновременно, повторите позже.");
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
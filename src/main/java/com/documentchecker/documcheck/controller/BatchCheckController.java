@@ -0,0 +1,87 @@
+package com.documentchecker.documcheck.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.documentchecker.documcheck.dto.BatchFileSummary;
+import com.documentchecker.documcheck.service.BatchCheckService;
+import com.documentchecker.documcheck.service.HistoryService;
+import com.documentchecker.documcheck.service.docx.DocxEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/checks/batch")
+@RequiredArgsConstructor
+public class BatchCheckController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson;charset=UTF-8");
+
+    private final BatchCheckService batchCheckService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${documcheck.engine:POI}")
+    private DocxEngine defaultEngine;
+
+    // Одна строка JSON на каждый документ из архива, в порядке завершения проверки
+    @PostMapping
+    public ResponseEntity<StreamingResponseBody> check(@RequestParam("file") MultipartFile file,
+            @RequestParam(value = "fontSize", defaultValue = "14") int fontSize,
+            @RequestParam(value = "indent", defaultValue = "1.25") double indent,
+            @RequestParam(value = "lineSpacing", defaultValue = "1.5") double lineSpacing,
+            @RequestParam(value = "engine", required = false) DocxEngine engine) throws IOException {
+        DocxEngine selectedEngine = engine != null ? engine : defaultEngine;
+        Path zip = Files.createTempFile("documcheck-batch-", ".zip");
+        file.transferTo(zip);
+        Long userId = HistoryService.currentUserId();
+
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            try {
+                batchCheckService.check(zip, fontSize, indent, lineSpacing, selectedEngine, userId, summary -> {
+                    try {
+                        writer.write(objectMapper.writeValueAsString(summary));
+                        writer.write('\n');
+                        writer.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.flush();
+            } catch (UncheckedIOException e) {
+                // клиент отключился: исключение из sink прерывает обход архива, новые документы не отправляются
+                System.out.println("ОШИБКА : " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                // истёк spring.mvc.async.request-timeout
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                System.out.println("ОШИБКА : " + e.getMessage());
+                writer.write(objectMapper.writeValueAsString(BatchFileSummary.failed(file.getOriginalFilename(),
+                        "Не удалось прочитать архив: " + e.getMessage())));
+                writer.write('\n');
+                writer.flush();
+            } finally {
+                Files.deleteIfExists(zip);
+            }
+        };
+
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+}
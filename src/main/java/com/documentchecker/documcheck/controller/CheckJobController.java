@@ -0,0 +1,168 @@
+package com.documentchecker.documcheck.controller;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.documentchecker.documcheck.dto.CheckFindingsResponse;
+import com.documentchecker.documcheck.dto.CheckJobResponse;
+import com.documentchecker.documcheck.service.ArchiveGuard.UnsafeArchiveException;
+import com.documentchecker.documcheck.service.CheckJob;
+import com.documentchecker.documcheck.service.CheckJobService;
+import com.documentchecker.documcheck.service.CheckJobStatus;
+import com.documentchecker.documcheck.service.CheckResult;
+import com.documentchecker.documcheck.service.DocumentStore;
+import com.documentchecker.documcheck.service.DocumentStore.StoredDocument;
+import com.documentchecker.documcheck.service.FindingsCodec;
+import com.documentchecker.documcheck.service.HistoryService;
+import com.documentchecker.documcheck.service.docx.DocxEngine;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/checks")
+@RequiredArgsConstructor
+public class CheckJobController {
+
+    private static final long SSE_TIMEOUT_MS = 10 * 60 * 1000L;
+
+    private final CheckJobService checkJobService;
+    private final DocumentStore documentStore;
+
+    @Value("${documcheck.engine:POI}")
+    private DocxEngine defaultEngine;
+
+    @Value("${documcheck.jobs.retry-after-seconds:5}")
+    private int retryAfterSeconds;
+
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestParam("file") MultipartFile file,
+            @RequestParam(value = "fontSize", defaultValue = "14") int fontSize,
+            @RequestParam(value = "indent", defaultValue = "1.25") double indent,
+            @RequestParam(value = "lineSpacing", defaultValue = "1.5") double lineSpacing,
+            @RequestParam(value = "engine", required = false) DocxEngine engine) throws IOException {
+        // полная очередь отказывает до сохранения файла
+        if (checkJobService.isFull()) {
+            return queueFull();
+        }
+        StoredDocument document;
+        try {
+            document = documentStore.save(file);
+        } catch (UnsafeArchiveException e) {
+            return ResponseEntity.unprocessableEntity()
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body(e.getMessage());
+        }
+        try {
+            CheckJob job = checkJobService.submit(document, fontSize, indent, lineSpacing, engine != null ? engine : defaultEngine,
+                    HistoryService.currentUserId());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/checks/" + job.getId()))
+                    .body(CheckJobResponse.of(job));
+        } catch (RejectedExecutionException e) {
+            // документ сохранён только для этой задачи: клиент повторит загрузку целиком
+            documentStore.remove(document.id());
+            return queueFull();
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CheckJobResponse> status(@PathVariable String id) {
+        return ownJob(id)
+                .map(job -> ResponseEntity.ok(CheckJobResponse.of(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/html")
+    public ResponseEntity<String> html(@PathVariable String id) {
+        return withResult(id, (job, result) -> ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .body(result.html()));
+    }
+
+    // Нарушения с правилом, позицией и значениями - для клиентов, которым не нужен HTML
+    @GetMapping(value = "/{id}/findings", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CheckFindingsResponse> findings(@PathVariable String id) {
+        return withResult(id, (job, result) -> ResponseEntity.ok(new CheckFindingsResponse(
+                job.getId(), job.getDocumentId(), result.findings().size(), result.findings())));
+    }
+
+    // То же в двоичном виде с таблицей строк, см. FindingsCodec; выбирается заголовком Accept
+    @GetMapping(value = "/{id}/findings", produces = FindingsCodec.MEDIA_TYPE)
+    public ResponseEntity<byte[]> compactFindings(@PathVariable String id) {
+        return withResult(id, (job, result) -> ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(FindingsCodec.MEDIA_TYPE))
+                .body(FindingsCodec.encode(result.findings())));
+    }
+
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(@PathVariable String id) {
+        CheckJob job = ownJob(id).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MS);
+        Consumer<CheckJob> listener = new Consumer<>() {
+            @Override
+            public void accept(CheckJob updated) {
+                try {
+                    emitter.send(SseEmitter.event().name("status").data(CheckJobResponse.of(updated)));
+                    if (updated.isFinished()) {
+                        emitter.complete();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    updated.removeListener(this);
+                }
+            }
+        };
+        emitter.onCompletion(() -> job.removeListener(listener));
+        emitter.onTimeout(() -> job.removeListener(listener));
+        job.addListener(listener);
+        // текущее состояние сразу, в том числе если задача уже завершилась до подписки
+        listener.accept(job);
+        return ResponseEntity.ok(emitter);
+    }
+
+    private ResponseEntity<?> queueFull() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body("Очередь проверок заполнена, повторите позже.");
+    }
+
+    // Чужая задача для пользователя не существует: 404, как и для неизвестного id
+    private Optional<CheckJob> ownJob(String id) {
+        Long userId = HistoryService.currentUserId();
+        return checkJobService.get(id).filter(job -> Objects.equals(job.getUserId(), userId));
+    }
+
+    // 404 для неизвестной задачи, 409 - пока задача не завершилась успешно
+    private <T> ResponseEntity<T> withResult(String id, BiFunction<CheckJob, CheckResult, ResponseEntity<T>> response) {
+        CheckJob job = ownJob(id).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() != CheckJobStatus.DONE) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return response.apply(job, job.getResult());
+    }
+}
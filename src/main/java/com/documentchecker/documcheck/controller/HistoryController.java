@@ -0,0 +1,59 @@
+package com.documentchecker.documcheck.controller;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.documentchecker.documcheck.dto.HistoryReport;
+import com.documentchecker.documcheck.model.User;
+import com.documentchecker.documcheck.service.FindingsCodec;
+import com.documentchecker.documcheck.service.HistoryService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/history")
+@RequiredArgsConstructor
+public class HistoryController {
+
+    private final HistoryService historyService;
+
+    // Проверки текущего пользователя, новые сначала; следующая страница - по nextCursor из ответа
+    @GetMapping
+    public ResponseEntity<?> history(@AuthenticationPrincipal User user,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(historyService.page(user.getId(), cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body(e.getMessage());
+        }
+    }
+
+    // Сохранённый отчёт прошлой проверки: документ не загружается и не проверяется заново
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<HistoryReport> report(@AuthenticationPrincipal User user, @PathVariable Long id) {
+        return historyService.report(user.getId(), id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // То же в двоичном виде FindingsCodec, прямо из сохранённых данных; выбирается заголовком Accept
+    @GetMapping(value = "/{id}", produces = FindingsCodec.MEDIA_TYPE)
+    public ResponseEntity<byte[]> compactReport(@AuthenticationPrincipal User user, @PathVariable Long id) {
+        return historyService.encodedReport(user.getId(), id)
+                .map(report -> ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(FindingsCodec.MEDIA_TYPE))
+                        .body(report))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
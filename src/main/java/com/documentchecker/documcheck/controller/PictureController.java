@@ -0,0 +1,53 @@
+package com.documentchecker.documcheck.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.documentchecker.documcheck.service.PictureStore;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+public class PictureController {
+
+    // Картинка уже вытеснена из PictureStore, а страница со ссылкой на неё ещё открыта
+    private static final byte[] MISSING_PICTURE = ("<svg xmlns='http://www.w3.org/2000/svg' width='320' height='60'>"
+            + "<rect width='100%' height='100%' fill='#f3f3f3' stroke='#999'/>"
+            + "<text x='50%' y='50%' dominant-baseline='middle' text-anchor='middle' font-family='sans-serif' font-size='13' fill='#666'>"
+            + "Картинка устарела, проверьте документ ещё раз</text></svg>").getBytes(StandardCharsets.UTF_8);
+
+    private final PictureStore pictureStore;
+
+    @GetMapping("/pictures/{hash}")
+    public ResponseEntity<byte[]> picture(@PathVariable String hash, WebRequest request) {
+        String etag = "\"" + hash + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+
+        // содержимое по хэшу не меняется, поэтому совпадения ETag достаточно даже без картинки в кэше
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+
+        return pictureStore.get(hash)
+                .map(picture -> ResponseEntity.ok()
+                        .eTag(etag)
+                        .cacheControl(cacheControl)
+                        .contentType(MediaType.parseMediaType(picture.mimeType()))
+                        .body(picture.data()))
+                // 404 с заглушкой вместо битой картинки; не кэшируется, чтобы после повторной проверки пришла настоящая
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .cacheControl(CacheControl.noStore())
+                        .contentType(MediaType.parseMediaType("image/svg+xml;charset=UTF-8"))
+                        .body(MISSING_PICTURE));
+    }
+}
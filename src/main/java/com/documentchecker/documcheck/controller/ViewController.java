@@ -1,37 +1,78 @@
 package com.documentchecker.documcheck.controller;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
-import org.springframework.util.FileCopyUtils;
+import org.springframework.web.util.HtmlUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
 
-import com.documentchecker.documcheck.service.DocxToHtmlConverter;
-import com.documentchecker.documcheck.service.StyleApplier;
+import com.documentchecker.documcheck.service.ArchiveGuard.UnsafeArchiveException;
+import com.documentchecker.documcheck.service.CheckReport;
+import com.documentchecker.documcheck.service.CheckResult;
+import com.documentchecker.documcheck.service.DocumentCheckService;
+import com.documentchecker.documcheck.service.DocumentCheckService.PreparedCheck;
+import com.documentchecker.documcheck.service.DocumentStore;
+import com.documentchecker.documcheck.service.DocumentStore.StoredDocument;
+import com.documentchecker.documcheck.service.HistoryService;
+import com.documentchecker.documcheck.service.StyledDownloadService;
+import com.documentchecker.documcheck.service.StyledDownloadService.StyledDocument;
+import com.documentchecker.documcheck.service.docx.DocxEngine;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
 
 @Controller
+@RequiredArgsConstructor
 public class ViewController {
+
+    private static final MediaType DOCX = MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+    // подставляется в upload.html вместо HTML документа, по нему страница делится на части до и после предпросмотра
+    private static final String PREVIEW_MARKER = "<!--documcheck-preview-->";
+
+    private final DocumentCheckService documentCheckService;
+    private final DocumentStore documentStore;
+    private final StyledDownloadService styledDownloadService;
+    private final HistoryService historyService;
+    private final TemplateEngine templateEngine;
+
+    @Value("${documcheck.engine:POI}")
+    private DocxEngine defaultEngine;
+
     @GetMapping("/") 
     public String index() {
         return "index";
     }
 
     @GetMapping("/upload")
-    public String getUpload(Model model) {
+    public String getUpload(@RequestParam(value = "engine", required = false) DocxEngine engine, Model model) {
         model.addAttribute("fontSizeValue", 14);
         model.addAttribute("indentValue", 1.25);
         model.addAttribute("lineSpacingValue", 1.5);
+        model.addAttribute("engineValue", engine != null ? engine : defaultEngine);
         return "upload";
     }
     
@@ -45,35 +86,39 @@ public class ViewController {
         return "login"; 
     }
 
+    // Файл отдаётся с диска без копий в памяти; ETag и Range обрабатывает Spring по FileSystemResource
     @GetMapping("/download-styled")
-    public void downloadStyledFile(@RequestParam("fontSize") int fontSize,HttpSession session, HttpServletResponse response) {
-        try {
-            byte[] fileBytes = (byte[]) session.getAttribute("lastUploadedFileBytes");
-            String filename = (String) session.getAttribute("lastUploadedFileName");
-
-            if (fileBytes == null) {
-                response.sendError(HttpServletResponse.SC_NOT_FOUND, "Файл для скачивания не найден. Пожалуйста, сначала проверьте документ.");
-                return;
-            }
-
-            XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(fileBytes));
-
-            StyleApplier.applyGostStyles(document, fontSize);
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            document.write(baos);
-            document.close();
+    public ResponseEntity<?> downloadStyledFile(@RequestParam("fontSize") int fontSize,
+    @RequestParam(value = "documentId", required = false) String documentId,
+    @RequestParam(value = "engine", required = false) DocxEngine engine,
+    HttpSession session) {
+        String id = documentId != null ? documentId : (String) session.getAttribute("lastUploadedDocumentId");
+        StoredDocument stored = documentStore.get(id).orElse(null);
 
+        if (stored == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body("Файл для скачивания не найден. Пожалуйста, сначала проверьте документ.");
+        }
+        try {
+            StyledDocument styled = styledDownloadService.styled(stored, fontSize, engine != null ? engine : defaultEngine);
+            // файл не удаляется вытеснением, пока ответ не отдан целиком
+            RequestContextHolder.currentRequestAttributes().registerDestructionCallback("styledDownload",
+                    () -> styledDownloadService.release(styled), RequestAttributes.SCOPE_REQUEST);
+            String filename = stored.filename();
             String styledFilename = "Styled_" + (filename != null ? filename.replace(" ", "_") : "document.docx");
 
-            response.setContentType("application/vnd.openxmlformats-officedocument.wordprocessingml.document");
-            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + styledFilename + "\"");
-            response.setContentLength(baos.size());
-
-            FileCopyUtils.copy(new ByteArrayInputStream(baos.toByteArray()), response.getOutputStream());
-
+            return ResponseEntity.ok()
+                    .contentType(DOCX)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + styledFilename + "\"")
+                    .eTag(styled.key())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(new FileSystemResource(styled.path()));
         } catch (Exception e) {
-            e.printStackTrace();
+            System.out.println("ОШИБКА : "+ e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body("Ошибка при подготовке файла: " + e.getMessage());
         }
     }
 
@@ -82,23 +127,34 @@ public class ViewController {
     @RequestParam("indent") double indent, @RequestParam("lineSpacing") 
     double lineSpacing,
     @RequestParam("file") MultipartFile file, 
+    @RequestParam(value = "engine", required = false) DocxEngine engine,
     Model model,
-    HttpSession session) {
+    HttpSession session,
+    HttpServletResponse response) {
+        DocxEngine selectedEngine = engine != null ? engine : defaultEngine;
+        model.addAttribute("engineValue", selectedEngine);
         try {
-            DocxToHtmlConverter htmlConverter = new DocxToHtmlConverter();
-            String htmlContent = htmlConverter.convertDocxToHtmlWithErrors(file, indent, lineSpacing, fontSize);
+            // сначала на диск через ArchiveGuard, проверяется уже сохранённая копия
+            StoredDocument stored = documentStore.save(file);
+            CheckResult result = documentCheckService.check(stored.source(), fontSize, indent, lineSpacing, selectedEngine);
+            String htmlContent = result.html();
             // String htmlContent = htmlConverter.convertDocxToHtml(file);
             model.addAttribute("fontSizeValue", fontSize);
             model.addAttribute("file", file);
             model.addAttribute("indentValue", indent);
             model.addAttribute("lineSpacingValue", lineSpacing);
             model.addAttribute("html", htmlContent);
-            session.setAttribute("lastUploadedFileBytes", file.getBytes());
-            session.setAttribute("lastUploadedFileName", file.getOriginalFilename());
+            model.addAttribute("documentId", stored.id());
+            session.setAttribute("lastUploadedDocumentId", stored.id());
+            historyService.record(HistoryService.currentUserId(), file.getOriginalFilename(), result.report());
             // model.addAttribute("history", htmlContent);
 
             
 
+        } catch (UnsafeArchiveException e) {
+            System.out.println("ОШИБКА : "+ e.getMessage());
+            response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+            model.addAttribute("errors", List.of("Файл отклонён: " + e.getMessage()));
         } catch (Exception e) {
             System.out.println("ОШИБКА : "+ e.getMessage());
             model.addAttribute("errors", List.of("Ошибка при проверке: " + e.getMessage()));
@@ -106,4 +162,105 @@ public class ViewController {
         return "upload";
     }
 
+    // Повторная проверка уже загруженного документа с новыми значениями ползунков; возвращает только HTML предпросмотра
+    @PostMapping("/upload/recheck")
+    public ResponseEntity<String> recheck(@RequestParam("documentId") String documentId,
+    @RequestParam("fontSize") int fontSize,
+    @RequestParam("indent") double indent, @RequestParam("lineSpacing") double lineSpacing,
+    @RequestParam(value = "engine", required = false) DocxEngine engine) {
+        StoredDocument stored = documentStore.get(documentId).orElse(null);
+        if (stored == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body("Документ не найден. Пожалуйста, загрузите его ещё раз.");
+        }
+        try {
+            String htmlContent = documentCheckService.check(stored.source(), fontSize, indent, lineSpacing,
+                    engine != null ? engine : defaultEngine).html();
+            return ResponseEntity.ok()
+                    .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                    .body(htmlContent);
+        } catch (Exception e) {
+            System.out.println("ОШИБКА : "+ e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body("Ошибка при проверке: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/upload/stream")
+    public ResponseEntity<StreamingResponseBody> streamUpload(@RequestParam("fontSize") int fontSize,
+    @RequestParam("indent") double indent, @RequestParam("lineSpacing") double lineSpacing,
+    @RequestParam("file") MultipartFile file,
+    @RequestParam(value = "engine", required = false) DocxEngine engine,
+    HttpSession session,
+    HttpServletRequest request,
+    HttpServletResponse response) throws IOException {
+        DocxEngine selectedEngine = engine != null ? engine : defaultEngine;
+        StoredDocument stored;
+        try {
+            stored = documentStore.save(file);
+        } catch (UnsafeArchiveException e) {
+            return ResponseEntity.unprocessableEntity()
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body(out -> out.write(e.getMessage().getBytes(StandardCharsets.UTF_8)));
+        }
+        // страница та же, что у POST /upload; потоком идёт только предпросмотр
+        String page = renderUploadPage(request, response, fontSize, indent, lineSpacing, selectedEngine, stored.id());
+        int preview = page.indexOf(PREVIEW_MARKER);
+        if (preview < 0) {
+            throw new IllegalStateException("В шаблоне upload нет места для предпросмотра");
+        }
+        // документ разбирается до первого байта ответа: отклонённый получает тот же код, что и в POST /upload
+        PreparedCheck check;
+        try {
+            check = documentCheckService.prepare(stored.source(), fontSize, indent, lineSpacing, selectedEngine);
+        } catch (UnsafeArchiveException e) {
+            System.out.println("ОШИБКА : "+ e.getMessage());
+            return ResponseEntity.unprocessableEntity()
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body(out -> out.write(("Файл отклонён: " + e.getMessage()).getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            System.out.println("ОШИБКА : "+ e.getMessage());
+            return ResponseEntity.unprocessableEntity()
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body(out -> out.write(("Ошибка при проверке: " + e.getMessage()).getBytes(StandardCharsets.UTF_8)));
+        }
+        session.setAttribute("lastUploadedDocumentId", stored.id());
+        // тело пишется уже вне потока запроса, где SecurityContext недоступен
+        Long userId = HistoryService.currentUserId();
+
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            writer.write(page, 0, preview);
+            writer.flush();
+            try {
+                CheckReport report = documentCheckService.stream(check, writer);
+                historyService.record(userId, file.getOriginalFilename(), report);
+            } catch (Exception e) {
+                System.out.println("ОШИБКА : "+ e.getMessage());
+                writer.write("<p class='error-message'>Ошибка при проверке: " + HtmlUtils.htmlEscape(String.valueOf(e.getMessage())) + "</p>");
+            }
+            writer.write(page, preview + PREVIEW_MARKER.length(), page.length() - preview - PREVIEW_MARKER.length());
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .body(body);
+    }
+
+    private String renderUploadPage(HttpServletRequest request, HttpServletResponse response, int fontSize, double indent,
+            double lineSpacing, DocxEngine engine, String documentId) {
+        WebContext context = new WebContext(JakartaServletWebApplication.buildApplication(request.getServletContext())
+                .buildExchange(request, response), request.getLocale());
+        context.setVariable("fontSizeValue", fontSize);
+        context.setVariable("indentValue", indent);
+        context.setVariable("lineSpacingValue", lineSpacing);
+        context.setVariable("engineValue", engine);
+        context.setVariable("documentId", documentId);
+        context.setVariable("html", PREVIEW_MARKER);
+        return templateEngine.process("upload", context);
+    }
+
 }
@@ -0,0 +1,15 @@
+package com.documentchecker.documcheck.dto;
+
+import java.util.Map;
+
+public record BatchFileSummary(
+        String file,
+        boolean ok,
+        int findings,
+        Map<String, Integer> errors,
+        String error) {
+
+    public static BatchFileSummary failed(String file, String error) {
+        return new BatchFileSummary(file, false, 0, Map.of(), error);
+    }
+}
@@ -0,0 +1,12 @@
+package com.documentchecker.documcheck.dto;
+
+import java.util.List;
+
+import com.documentchecker.documcheck.service.CheckFinding;
+
+public record CheckFindingsResponse(
+        String id,
+        String documentId,
+        int count,
+        List<CheckFinding> findings) {
+}
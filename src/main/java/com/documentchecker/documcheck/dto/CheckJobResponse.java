@@ -0,0 +1,23 @@
+package com.documentchecker.documcheck.dto;
+
+import com.documentchecker.documcheck.service.CheckJob;
+import com.documentchecker.documcheck.service.CheckJobStatus;
+
+public record CheckJobResponse(
+        String id,
+        CheckJobStatus status,
+        int processedElements,
+        Integer findings,
+        String documentId,
+        String error) {
+
+    public static CheckJobResponse of(CheckJob job) {
+        return new CheckJobResponse(
+                job.getId(),
+                job.getStatus(),
+                job.getProcessedElements(),
+                job.getResult() != null ? job.getResult().findings().size() : null,
+                job.getDocumentId(),
+                job.getError());
+    }
+}
@@ -0,0 +1,13 @@
+package com.documentchecker.documcheck.dto;
+
+import java.time.LocalDateTime;
+
+// Строка истории вместе со сжатым отчётом, как она лежит в базе
+public record HistoryEntry(
+        Long id,
+        String documentName,
+        LocalDateTime dateTime,
+        String contentHash,
+        Integer findingsCount,
+        byte[] report) {
+}
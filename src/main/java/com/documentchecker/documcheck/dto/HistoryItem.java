@@ -0,0 +1,11 @@
+package com.documentchecker.documcheck.dto;
+
+import java.time.LocalDateTime;
+
+public record HistoryItem(
+        Long id,
+        String documentName,
+        LocalDateTime dateTime,
+        String contentHash,
+        Integer findingsCount) {
+}
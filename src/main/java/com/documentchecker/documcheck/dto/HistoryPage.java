@@ -0,0 +1,9 @@
+package com.documentchecker.documcheck.dto;
+
+import java.util.List;
+
+// nextCursor - передать в следующий запрос как cursor; null, если это последняя страница
+public record HistoryPage(
+        List<HistoryItem> items,
+        String nextCursor) {
+}
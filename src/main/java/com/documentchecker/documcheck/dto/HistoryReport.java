@@ -0,0 +1,15 @@
+package com.documentchecker.documcheck.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.documentchecker.documcheck.service.CheckFinding;
+
+public record HistoryReport(
+        Long id,
+        String documentName,
+        LocalDateTime dateTime,
+        String contentHash,
+        int count,
+        List<CheckFinding> findings) {
+}
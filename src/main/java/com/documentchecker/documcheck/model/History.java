@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "history")
+@Table(name = "history", indexes = @Index(name = "idx_history_user_date_time", columnList = "user_id, date_time"))
 public class History {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,6 +24,16 @@ public class History {
     @Column(nullable = false)
     private LocalDateTime dateTime;
 
+    // SHA-256 проверенного документа
+    @Column(length = 64)
+    private String contentHash;
+
+    private Integer findingsCount;
+
+    // Находки в формате FindingsCodec, сжатые Deflate; не @Lob, чтобы в PostgreSQL это был bytea, а не large object
+    @Column(length = 16 * 1024 * 1024)
+    private byte[] report;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
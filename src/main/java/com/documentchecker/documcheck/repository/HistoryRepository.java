@@ -1,9 +1,31 @@
 package com.documentchecker.documcheck.repository;
 
+import com.documentchecker.documcheck.dto.HistoryEntry;
+import com.documentchecker.documcheck.dto.HistoryItem;
 import com.documentchecker.documcheck.model.History;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+// Страницы истории по ключу (date_time, id) вместо OFFSET: каждая страница - один проход по индексу (user_id, date_time)
 public interface HistoryRepository extends JpaRepository<History, Long> {
-    List<History> findByUserIdOrderByDateTimeDesc(Long userId);
+
+    @Query("select new com.documentchecker.documcheck.dto.HistoryItem(h.id, h.documentName, h.dateTime, h.contentHash, h.findingsCount) from History h"
+            + " where h.user.id = :userId order by h.dateTime desc, h.id desc")
+    List<HistoryItem> findFirstPage(@Param("userId") Long userId, Limit limit);
+
+    @Query("select new com.documentchecker.documcheck.dto.HistoryItem(h.id, h.documentName, h.dateTime, h.contentHash, h.findingsCount) from History h"
+            + " where h.user.id = :userId and h.dateTime <= :dateTime and (h.dateTime < :dateTime or h.id < :id)"
+            + " order by h.dateTime desc, h.id desc")
+    List<HistoryItem> findPageAfter(@Param("userId") Long userId, @Param("dateTime") LocalDateTime dateTime,
+            @Param("id") Long id, Limit limit);
+
+    // Только записи самого пользователя: чужой id выглядит как отсутствующий
+    @Query("select new com.documentchecker.documcheck.dto.HistoryEntry(h.id, h.documentName, h.dateTime, h.contentHash,"
+            + " h.findingsCount, h.report) from History h where h.id = :id and h.user.id = :userId")
+    Optional<HistoryEntry> findEntry(@Param("userId") Long userId, @Param("id") Long id);
 }
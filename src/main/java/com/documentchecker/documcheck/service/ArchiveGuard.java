@@ -0,0 +1,163 @@
+package com.documentchecker.documcheck.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.poi.openxml4j.util.ZipInputStreamZipEntrySource;
+import org.apache.poi.openxml4j.util.ZipSecureFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Защита от zip-бомб. До того как документ откроет POI или StAX, читается только центральный
+ * каталог архива: отклоняются части больше documcheck.zip.max-entry-bytes, документы с суммой
+ * частей больше documcheck.zip.max-total-bytes, части, сжатые сильнее documcheck.zip.max-ratio,
+ * и архивы с числом частей больше documcheck.zip.max-entries. Каталог может врать о размерах,
+ * поэтому те же лимиты действуют и при распаковке: в POI через ZipSecureFile, в StAX и пакетной
+ * проверке - через ограниченный поток. Крупные части POI распаковывает во временные файлы,
+ * а не в кучу (documcheck.zip.poi-temp-file-threshold).
+ */
+@Service
+public class ArchiveGuard {
+
+    public static class UnsafeArchiveException extends IOException {
+        public UnsafeArchiveException(String message) {
+            super(message);
+        }
+    }
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int CENTRAL_FILE_HEADER = 0x02014b50;
+    private static final int END_RECORD_SIZE = 22;
+    private static final int FILE_HEADER_SIZE = 46;
+    private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+    // Маленькие части сжимаются как угодно сильно и не опасны, как GRACE_ENTRY_SIZE в POI
+    private static final long RATIO_GRACE_BYTES = 100 * 1024;
+
+    private final long maxEntryBytes;
+    private final long maxTotalBytes;
+    private final int maxRatio;
+    private final int maxEntries;
+    private final Counter rejected;
+
+    public ArchiveGuard(@Value("${documcheck.zip.max-entry-bytes:67108864}") long maxEntryBytes,
+            @Value("${documcheck.zip.max-total-bytes:268435456}") long maxTotalBytes,
+            @Value("${documcheck.zip.max-ratio:100}") int maxRatio,
+            @Value("${documcheck.zip.max-entries:10000}") int maxEntries,
+            @Value("${documcheck.zip.poi-temp-file-threshold:16777216}") int poiTempFileThreshold,
+            MeterRegistry meterRegistry) {
+        this.maxEntryBytes = maxEntryBytes;
+        this.maxTotalBytes = maxTotalBytes;
+        this.maxRatio = maxRatio;
+        this.maxEntries = maxEntries;
+        this.rejected = Counter.builder("documcheck.zip.rejected").register(meterRegistry);
+        // настройки POI статические и действуют на весь процесс
+        ZipSecureFile.setMaxEntrySize(maxEntryBytes);
+        ZipSecureFile.setMinInflateRatio(1.0 / maxRatio);
+        ZipInputStreamZipEntrySource.setThresholdBytesForTempFiles(poiTempFileThreshold);
+    }
+
+    public long maxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    // Один документ docx: все лимиты, включая сумму частей
+    public void checkDocument(Path docx) throws IOException {
+        try (FileChannel channel = FileChannel.open(docx, StandardOpenOption.READ)) {
+            scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), maxTotalBytes);
+        }
+    }
+
+    public void checkDocument(byte[] docx) throws IOException {
+        scan(ByteBuffer.wrap(docx), maxTotalBytes);
+    }
+
+    // Архив пакетной проверки: документы распаковываются по одному, так что сумма не ограничивается
+    public void checkBatch(Path zip) throws IOException {
+        try (FileChannel channel = FileChannel.open(zip, StandardOpenOption.READ)) {
+            scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), Long.MAX_VALUE);
+        }
+    }
+
+    private void scan(ByteBuffer zip, long maxTotal) throws UnsafeArchiveException {
+        try {
+            zip.order(ByteOrder.LITTLE_ENDIAN);
+            int end = findEndOfCentralDirectory(zip);
+            if (end < 0) {
+                throw reject("Файл не является архивом docx");
+            }
+            int entries = Short.toUnsignedInt(zip.getShort(end + 10));
+            long directorySize = Integer.toUnsignedLong(zip.getInt(end + 12));
+            long directoryOffset = Integer.toUnsignedLong(zip.getInt(end + 16));
+            if (entries == 0xFFFF || directoryOffset == ZIP64_MARKER) {
+                throw reject("Архивы ZIP64 не поддерживаются");
+            }
+            if (entries > maxEntries) {
+                throw reject("Слишком много частей в архиве: " + entries);
+            }
+            if (directoryOffset + directorySize > end) {
+                throw reject("Архив повреждён");
+            }
+
+            int position = (int) directoryOffset;
+            long total = 0;
+            for (int i = 0; i < entries; i++) {
+                if (zip.getInt(position) != CENTRAL_FILE_HEADER) {
+                    throw reject("Архив повреждён");
+                }
+                long compressed = Integer.toUnsignedLong(zip.getInt(position + 20));
+                long size = Integer.toUnsignedLong(zip.getInt(position + 24));
+                int nameLength = Short.toUnsignedInt(zip.getShort(position + 28));
+                int extraLength = Short.toUnsignedInt(zip.getShort(position + 30));
+                int commentLength = Short.toUnsignedInt(zip.getShort(position + 32));
+                if (compressed == ZIP64_MARKER || size == ZIP64_MARKER) {
+                    throw reject("Архивы ZIP64 не поддерживаются");
+                }
+                if (size > maxEntryBytes) {
+                    throw reject("Часть " + name(zip, position, nameLength) + " больше " + maxEntryBytes + " байт после распаковки");
+                }
+                if (size > RATIO_GRACE_BYTES && size > compressed * maxRatio) {
+                    throw reject("Часть " + name(zip, position, nameLength) + " сжата подозрительно сильно: "
+                            + size + " байт из " + compressed);
+                }
+                total += size;
+                if (total > maxTotal) {
+                    throw reject("Документ больше " + maxTotal + " байт после распаковки");
+                }
+                position += FILE_HEADER_SIZE + nameLength + extraLength + commentLength;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw reject("Архив повреждён");
+        }
+    }
+
+    // Запись конца каталога - последние 22 байта, если у архива нет комментария, иначе ищем назад
+    private static int findEndOfCentralDirectory(ByteBuffer zip) {
+        int last = zip.limit() - END_RECORD_SIZE;
+        for (int position = last; position >= 0 && position >= last - 0xFFFF; position--) {
+            if (zip.getInt(position) == END_OF_CENTRAL_DIRECTORY) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private static String name(ByteBuffer zip, int position, int length) {
+        byte[] name = new byte[length];
+        zip.get(position + FILE_HEADER_SIZE, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    private UnsafeArchiveException reject(String message) {
+        rejected.increment();
+        return new UnsafeArchiveException(message);
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 // DTO (Data Transfer Objects) для запросов
 
 record JwtAuthenticationResponse(String token) {}
@@ -23,8 +25,18 @@ public class AuthenticationService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final PasswordHashingService passwordHashing;
+
+    // BCrypt считается в пуле PasswordHashingService; при переполнении очереди - RejectedExecutionException
+    public CompletableFuture<JwtAuthenticationResponse> signup(SignUpRequest request) {
+        return passwordHashing.submit(() -> register(request));
+    }
+
+    public CompletableFuture<JwtAuthenticationResponse> signin(SignInRequest request) {
+        return passwordHashing.submit(() -> authenticate(request));
+    }
 
-    public JwtAuthenticationResponse signup(SignUpRequest request) {
+    private JwtAuthenticationResponse register(SignUpRequest request) {
         var user = User.builder()
                 .username(request.username())
                 .password(passwordEncoder.encode(request.password()))
@@ -34,7 +46,8 @@ public class AuthenticationService {
         return new JwtAuthenticationResponse(jwt);
     }
 
-    public JwtAuthenticationResponse signin(SignInRequest request) {
+    // Если хэш в базе слабее текущего documcheck.auth.bcrypt-strength, провайдер пересчитывает его через UserService.updatePassword
+    private JwtAuthenticationResponse authenticate(SignInRequest request) {
         authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.username(), request.password()));
         var user = userRepository.findByUsername(request.username())
@@ -0,0 +1,180 @@
+package com.documentchecker.documcheck.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.stereotype.Service;
+
+import com.documentchecker.documcheck.dto.BatchFileSummary;
+import com.documentchecker.documcheck.service.docx.DocxEngine;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Проверка архива с документами. Файлы проверяются параллельно на общем ForkJoinPool,
+ * а сводка по каждому отдаётся в sink по мере готовности. Суммарный размер распакованных
+ * документов, одновременно находящихся в памяти, ограничен documcheck.batch.max-in-flight-bytes
+ * для всех запросов сразу. Архив и каждый документ в нём сначала проверяются ArchiveGuard.
+ */
+@Service
+public class BatchCheckService {
+
+    private static final int READ_CHUNK = 64 * 1024;
+
+    private final DocumentCheckService documentCheckService;
+    private final HistoryService historyService;
+    private final ArchiveGuard archiveGuard;
+    private final ForkJoinPool pool;
+    private final Semaphore inFlightBytes;
+    private final int maxInFlightBytes;
+
+    public BatchCheckService(DocumentCheckService documentCheckService, HistoryService historyService, ArchiveGuard archiveGuard,
+            @Value("${documcheck.batch.threads:0}") int threads,
+            @Value("${documcheck.batch.max-in-flight-bytes:67108864}") int maxInFlightBytes) {
+        this.documentCheckService = documentCheckService;
+        this.historyService = historyService;
+        this.archiveGuard = archiveGuard;
+        this.pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.inFlightBytes = new Semaphore(maxInFlightBytes);
+    }
+
+    public void check(Path zip, int fontSize, double indent, double lineSpacing, DocxEngine engine, Long userId,
+            Consumer<BatchFileSummary> sink) throws IOException, InterruptedException {
+        BlockingQueue<BatchFileSummary> done = new LinkedBlockingQueue<>();
+        int submitted = 0;
+        archiveGuard.checkBatch(zip);
+        long maxEntryBytes = Math.min(archiveGuard.maxEntryBytes(), Integer.MAX_VALUE - 8);
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().toLowerCase(Locale.ROOT).endsWith(".docx")) {
+                    continue;
+                }
+                Entry read;
+                try (InputStream is = zipFile.getInputStream(entry)) {
+                    read = read(is, entry.getSize(), maxEntryBytes);
+                } catch (IOException e) {
+                    sink.accept(BatchFileSummary.failed(entry.getName(), "Не удалось распаковать: " + e.getMessage()));
+                    continue;
+                }
+                if (read == null) {
+                    sink.accept(BatchFileSummary.failed(entry.getName(), "Документ больше " + maxEntryBytes + " байт"));
+                    continue;
+                }
+                String name = entry.getName();
+                try {
+                    pool.execute(() -> {
+                        try {
+                            done.add(checkOne(name, read.data(), fontSize, indent, lineSpacing, engine, userId));
+                        } finally {
+                            inFlightBytes.release(read.held());
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    inFlightBytes.release(read.held());
+                    throw e;
+                }
+                submitted++;
+
+                BatchFileSummary summary;
+                while ((summary = done.poll()) != null) {
+                    sink.accept(summary);
+                    submitted--;
+                }
+            }
+        }
+        while (submitted > 0) {
+            sink.accept(done.take());
+            submitted--;
+        }
+    }
+
+    // Документ в памяти и занятая под него часть бюджета
+    private record Entry(byte[] data, int held) {
+    }
+
+    // Читает документ кусками, занимая бюджет до чтения каждого куска, так что размер в каталоге архива
+    // ничего не решает: документ больше всего бюджета занимает его целиком и проверяется один.
+    // null - документ больше maxEntryBytes; тогда и при любой ошибке занятое возвращается
+    private Entry read(InputStream is, long declaredSize, long maxEntryBytes) throws IOException, InterruptedException {
+        int capacity = (int) Math.min(Math.max(declaredSize, 1), maxEntryBytes + 1);
+        int held = Math.min(capacity, maxInFlightBytes);
+        inFlightBytes.acquire(held);
+        boolean kept = false;
+        try {
+            byte[] data = new byte[capacity];
+            int length = 0;
+            while (length <= maxEntryBytes) {
+                if (length == data.length) {
+                    // буфер заполнен: размер в каталоге занижен или это конец - проверяем одним байтом
+                    int next = is.read();
+                    if (next < 0) {
+                        break;
+                    }
+                    capacity = (int) Math.min((long) length + READ_CHUNK, maxEntryBytes + 1);
+                    int more = Math.min(capacity, maxInFlightBytes) - held;
+                    if (more > 0) {
+                        inFlightBytes.acquire(more);
+                        held += more;
+                    }
+                    data = Arrays.copyOf(data, capacity);
+                    data[length++] = (byte) next;
+                    continue;
+                }
+                int n = is.read(data, length, data.length - length);
+                if (n < 0) {
+                    break;
+                }
+                length += n;
+            }
+            if (length > maxEntryBytes) {
+                return null;
+            }
+            kept = true;
+            return new Entry(length == data.length ? data : Arrays.copyOf(data, length), held);
+        } finally {
+            if (!kept) {
+                inFlightBytes.release(held);
+            }
+        }
+    }
+
+    private BatchFileSummary checkOne(String name, byte[] data, int fontSize, double indent, double lineSpacing,
+            DocxEngine engine, Long userId) {
+        try {
+            archiveGuard.checkDocument(data);
+            CheckResult result = documentCheckService.check(new ByteArrayResource(data), fontSize, indent, lineSpacing, engine);
+            historyService.record(userId, name, result.report());
+            Map<String, Integer> errors = new LinkedHashMap<>();
+            for (CheckFinding finding : result.findings()) {
+                errors.merge(finding.message(), 1, Integer::sum);
+            }
+            return new BatchFileSummary(name, true, result.findings().size(), errors, null);
+        } catch (Exception e) {
+            System.out.println("ОШИБКА : " + name + ": " + e.getMessage());
+            return BatchFileSummary.failed(name, "Ошибка при проверке: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,8 @@
+package com.documentchecker.documcheck.service;
+
+// elementIndex - номер элемента тела документа (абзаца или таблицы), начиная с 0;
+// paragraph - номер абзаца внутри элемента (для таблицы - по порядку ячеек), run - номер фрагмента в абзаце;
+// start и end - смещения фрагмента в тексте абзаца, склеенном из фрагментов. Для нарушений абзаца run, start и end равны -1
+public record CheckFinding(int elementIndex, int paragraph, int run, int start, int end,
+        String rule, String actual, String expected, String message) {
+}
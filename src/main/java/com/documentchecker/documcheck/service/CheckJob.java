@@ -0,0 +1,135 @@
+package com.documentchecker.documcheck.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import com.documentchecker.documcheck.service.docx.DocxEngine;
+
+public class CheckJob {
+
+    private static final int PROGRESS_NOTIFY_STEP = 50;
+
+    private final String id;
+    private final String documentId;
+    private final int fontSize;
+    private final double indent;
+    private final double lineSpacing;
+    private final DocxEngine engine;
+    // null - проверка без входа, в историю не записывается
+    private final Long userId;
+    private final long createdAt = System.currentTimeMillis();
+    private final List<Consumer<CheckJob>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile CheckJobStatus status = CheckJobStatus.QUEUED;
+    private volatile int processedElements;
+    private volatile CheckResult result;
+    private volatile String error;
+    private volatile long finishedAt;
+
+    CheckJob(String id, String documentId, int fontSize, double indent, double lineSpacing, DocxEngine engine, Long userId) {
+        this.id = id;
+        this.documentId = documentId;
+        this.fontSize = fontSize;
+        this.indent = indent;
+        this.lineSpacing = lineSpacing;
+        this.engine = engine;
+        this.userId = userId;
+    }
+
+    public void addListener(Consumer<CheckJob> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<CheckJob> listener) {
+        listeners.remove(listener);
+    }
+
+    void started() {
+        status = CheckJobStatus.RUNNING;
+        notifyListeners();
+    }
+
+    void progress(int processed) {
+        processedElements = processed;
+        if (processed % PROGRESS_NOTIFY_STEP == 0) {
+            notifyListeners();
+        }
+    }
+
+    void completed(CheckResult result) {
+        this.result = result;
+        this.finishedAt = System.currentTimeMillis();
+        this.status = CheckJobStatus.DONE;
+        notifyListeners();
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.finishedAt = System.currentTimeMillis();
+        this.status = CheckJobStatus.FAILED;
+        notifyListeners();
+    }
+
+    public boolean isFinished() {
+        return status == CheckJobStatus.DONE || status == CheckJobStatus.FAILED;
+    }
+
+    private void notifyListeners() {
+        for (Consumer<CheckJob> listener : listeners) {
+            listener.accept(this);
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public int getFontSize() {
+        return fontSize;
+    }
+
+    public double getIndent() {
+        return indent;
+    }
+
+    public double getLineSpacing() {
+        return lineSpacing;
+    }
+
+    public DocxEngine getEngine() {
+        return engine;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public CheckJobStatus getStatus() {
+        return status;
+    }
+
+    public int getProcessedElements() {
+        return processedElements;
+    }
+
+    public CheckResult getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+}
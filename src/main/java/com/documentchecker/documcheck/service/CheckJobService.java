@@ -0,0 +1,124 @@
+package com.documentchecker.documcheck.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.documentchecker.documcheck.service.DocumentStore.StoredDocument;
+import com.documentchecker.documcheck.service.docx.DocxEngine;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Фоновые проверки. Разбор документа занимает процессор, поэтому пул фиксирован по числу
+ * ядер, а очередь ограничена: при переполнении submit бросает RejectedExecutionException,
+ * и запрос получает отказ сразу, а не ждёт неограниченно. Завершённые задачи хранятся
+ * documcheck.jobs.retention, но не больше documcheck.jobs.max-bytes по оценке размера результатов:
+ * при переполнении вытесняются редко запрашиваемые.
+ */
+@Service
+public class CheckJobService {
+
+    // сама задача и текст ошибки, если результата нет
+    private static final int JOB_BYTES = 512;
+
+    private final DocumentCheckService documentCheckService;
+    private final DocumentStore documentStore;
+    private final HistoryService historyService;
+    private final ThreadPoolExecutor executor;
+    // задачи в очереди и в работе; их число уже ограничено пулом и очередью
+    private final Map<String, CheckJob> active = new ConcurrentHashMap<>();
+    private final Cache<String, CheckJob> finished;
+
+    public CheckJobService(DocumentCheckService documentCheckService, DocumentStore documentStore, HistoryService historyService,
+            MeterRegistry meterRegistry,
+            @Value("${documcheck.jobs.threads:0}") int threads,
+            @Value("${documcheck.jobs.queue-capacity:100}") int queueCapacity,
+            @Value("${documcheck.jobs.retention:15m}") Duration retention,
+            @Value("${documcheck.jobs.max-bytes:134217728}") long maxBytes) {
+        this.documentCheckService = documentCheckService;
+        this.documentStore = documentStore;
+        this.historyService = historyService;
+        this.finished = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String id, CheckJob job) -> JOB_BYTES + (job.getResult() != null ? job.getResult().estimatedBytes() : 0))
+                .expireAfterWrite(retention)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, finished, "documcheck.jobs");
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "check-job-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CheckJob submit(StoredDocument document, int fontSize, double indent, double lineSpacing, DocxEngine engine,
+            Long userId) {
+        CheckJob job = new CheckJob(UUID.randomUUID().toString(), document.id(), fontSize, indent, lineSpacing, engine, userId);
+        active.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, document));
+        } catch (RejectedExecutionException e) {
+            active.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<CheckJob> get(String id) {
+        CheckJob job = active.get(id);
+        return Optional.ofNullable(job != null ? job : finished.getIfPresent(id));
+    }
+
+    public int queuedJobs() {
+        return executor.getQueue().size();
+    }
+
+    // Очередь заполнена и submit будет отклонён; проверка без гарантий, отказ всё равно возможен
+    public boolean isFull() {
+        return executor.getQueue().remainingCapacity() == 0;
+    }
+
+    private void run(CheckJob job, StoredDocument document) {
+        job.started();
+        try {
+            StoredDocument current = documentStore.get(document.id()).orElse(document);
+            CheckResult result = documentCheckService.check(current.source(), job.getFontSize(), job.getIndent(),
+                    job.getLineSpacing(), job.getEngine(), job::progress);
+            job.completed(result);
+            historyService.record(job.getUserId(), current.filename(), result.report());
+        } catch (Exception e) {
+            System.out.println("ОШИБКА : " + e.getMessage());
+            job.failed("Ошибка при проверке: " + e.getMessage());
+        } finally {
+            // сначала в кэш, потом из активных - чтобы get не терял задачу между ними
+            finished.put(job.getId(), job);
+            active.remove(job.getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
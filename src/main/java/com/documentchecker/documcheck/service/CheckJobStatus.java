@@ -0,0 +1,8 @@
+package com.documentchecker.documcheck.service;
+
+public enum CheckJobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
@@ -0,0 +1,87 @@
+package com.documentchecker.documcheck.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.documentchecker.documcheck.service.docx.DocxEngine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Метрики проверки. Теги только с заранее известным набором значений: фаза, движок,
+ * попадание в кэш и правило нарушения (id из GostRule, не текст сообщения).
+ */
+@Component
+public class CheckMetrics {
+
+    public static final String PHASE_OPEN = "open";
+    public static final String PHASE_HEADERS = "headers";
+    public static final String PHASE_ELEMENTS = "elements";
+    public static final String PHASE_VIEW = "view";
+
+    private final MeterRegistry registry;
+    private final DistributionSummary documentSize;
+    private final DistributionSummary paragraphs;
+    private final DistributionSummary htmlSize;
+    private final Map<String, Counter> findingCounters = new ConcurrentHashMap<>();
+
+    public CheckMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.documentSize = DistributionSummary.builder("documcheck.document.size")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.paragraphs = DistributionSummary.builder("documcheck.document.paragraphs")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.htmlSize = DistributionSummary.builder("documcheck.html.size")
+                .baseUnit("chars")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public void phase(String phase, DocxEngine engine, long nanos) {
+        Timer.builder("documcheck.check.phase")
+                .tag("phase", phase)
+                .tag("engine", engine != null ? engine.name() : "none")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // cache: hit - готовый результат, model - повторная проверка по разобранному документу, miss - разбор
+    public void check(DocxEngine engine, String cache, boolean success, long nanos) {
+        Timer.builder("documcheck.check")
+                .tag("engine", engine.name())
+                .tag("cache", cache)
+                .tag("outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void converted(DocxToHtmlConverter converter, DocxEngine engine, long documentBytes) {
+        phase(PHASE_OPEN, engine, converter.getOpenNanos());
+        phase(PHASE_HEADERS, engine, converter.getHeadersNanos());
+        phase(PHASE_ELEMENTS, engine, converter.getElementsNanos());
+        documentSize.record(documentBytes);
+        paragraphs.record(converter.getParagraphCount());
+        htmlSize.record(converter.getOutputChars());
+        findings(converter.getFindings());
+    }
+
+    private void findings(List<CheckFinding> findings) {
+        for (CheckFinding finding : findings) {
+            findingCounters.computeIfAbsent(finding.rule(),
+                    rule -> Counter.builder("documcheck.findings").tag("rule", rule).register(registry))
+                    .increment();
+        }
+    }
+}
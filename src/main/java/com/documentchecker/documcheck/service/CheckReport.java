@@ -0,0 +1,7 @@
+package com.documentchecker.documcheck.service;
+
+import java.util.List;
+
+// Что сохраняется в истории о проверке: SHA-256 документа и найденные нарушения, без HTML
+public record CheckReport(String contentHash, List<CheckFinding> findings) {
+}
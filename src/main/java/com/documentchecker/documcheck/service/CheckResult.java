@@ -0,0 +1,22 @@
+package com.documentchecker.documcheck.service;
+
+import java.util.List;
+import java.util.Set;
+
+public record CheckResult(String html, List<CheckFinding> findings, Set<String> pictureHashes, String contentHash) {
+
+    public CheckReport report() {
+        return new CheckReport(contentHash, findings);
+    }
+
+    // Приблизительный размер в куче: строки хранятся в UTF-16
+    public int estimatedBytes() {
+        long bytes = 2L * html.length();
+        for (CheckFinding finding : findings) {
+            // запись с позицией и короткими строками найденного значения
+            bytes += 96 + 2L * finding.message().length();
+        }
+        bytes += 96L * pictureHashes.size();
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+}
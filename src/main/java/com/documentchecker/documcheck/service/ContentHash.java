@@ -0,0 +1,45 @@
+package com.documentchecker.documcheck.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.springframework.core.io.InputStreamSource;
+
+public final class ContentHash {
+
+    public record Digest(String sha256, long size) {
+    }
+
+    private ContentHash() {
+    }
+
+    public static String sha256(byte[] data) {
+        return HexFormat.of().formatHex(newDigest().digest(data));
+    }
+
+    public static String sha256(InputStreamSource source) throws IOException {
+        return digest(source).sha256();
+    }
+
+    public static Digest digest(InputStreamSource source) throws IOException {
+        MessageDigest digest = newDigest();
+        long size;
+        try (InputStream in = new DigestInputStream(source.getInputStream(), digest)) {
+            size = in.transferTo(OutputStream.nullOutputStream());
+        }
+        return new Digest(HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.documentchecker.documcheck.service;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.function.IntConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+
+import com.documentchecker.documcheck.service.docx.DocxDocument;
+import com.documentchecker.documcheck.service.docx.DocxEngine;
+import com.documentchecker.documcheck.service.docx.DocxReader;
+import com.documentchecker.documcheck.service.rule.FormatColumns;
+import com.documentchecker.documcheck.service.rule.GostRuleEngine;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Проверка документа с кэшем результатов. Ключ - SHA-256 загруженного файла и параметры
+ * проверки, поэтому повторная загрузка того же файла с теми же ползунками не открывает архив.
+ * Кроме готовых результатов кэшируется разобранный документ: при новых значениях ползунков
+ * проверка и вёрстка идут по нему, без повторного разбора docx.
+ */
+@Service
+public class DocumentCheckService {
+
+    private record CheckKey(String documentHash, int fontSize, double indent, double lineSpacing, DocxEngine engine) {
+    }
+
+    private record ModelKey(String documentHash, DocxEngine engine) {
+    }
+
+    // Разобранный документ и его свойства по столбцам для проверки без обхода записей
+    private record CheckModel(DocxDocument document, FormatColumns columns) {
+    }
+
+    // Документ, прошедший всё, что может его отклонить: готовый результат из кэша или разобранная модель
+    public static final class PreparedCheck {
+        private final long start;
+        private final ContentHash.Digest digest;
+        private final int fontSize;
+        private final double indent;
+        private final double lineSpacing;
+        private final DocxEngine engine;
+        private final CheckResult cached;
+        private final CheckModel model;
+        private final boolean modelCached;
+
+        private PreparedCheck(long start, ContentHash.Digest digest, int fontSize, double indent, double lineSpacing,
+                DocxEngine engine, CheckResult cached, CheckModel model, boolean modelCached) {
+            this.start = start;
+            this.digest = digest;
+            this.fontSize = fontSize;
+            this.indent = indent;
+            this.lineSpacing = lineSpacing;
+            this.engine = engine;
+            this.cached = cached;
+            this.model = model;
+            this.modelCached = modelCached;
+        }
+    }
+
+    private final GostRuleEngine gostRuleEngine;
+    private final PictureStore pictureStore;
+    private final TextMeasurer textMeasurer;
+    private final CheckMetrics metrics;
+    private final Cache<CheckKey, CheckResult> resultCache;
+    private final Cache<ModelKey, CheckModel> modelCache;
+    private final int parallelMinElements;
+
+    public DocumentCheckService(GostRuleEngine gostRuleEngine, PictureStore pictureStore, TextMeasurer textMeasurer,
+            CheckMetrics metrics, MeterRegistry meterRegistry,
+            @Value("${documcheck.result-cache.max-bytes:134217728}") long maxBytes,
+            @Value("${documcheck.result-cache.expire-after-access:1h}") Duration expireAfterAccess,
+            @Value("${documcheck.model-cache.max-bytes:67108864}") long modelMaxBytes,
+            @Value("${documcheck.model-cache.expire-after-access:1h}") Duration modelExpireAfterAccess,
+            @Value("${documcheck.render.parallel-min-elements:200}") int parallelMinElements) {
+        this.gostRuleEngine = gostRuleEngine;
+        this.pictureStore = pictureStore;
+        this.textMeasurer = textMeasurer;
+        this.metrics = metrics;
+        // на одном ядре параллельная вёрстка только добавляет накладные расходы
+        this.parallelMinElements = Runtime.getRuntime().availableProcessors() > 1 ? parallelMinElements : 0;
+        this.resultCache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((CheckKey key, CheckResult result) -> result.estimatedBytes())
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        this.modelCache = Caffeine.newBuilder()
+                .maximumWeight(modelMaxBytes)
+                .weigher((ModelKey key, CheckModel model) -> (int) Math.min(model.document().estimatedBytes(), Integer.MAX_VALUE))
+                .expireAfterAccess(modelExpireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, resultCache, "documcheck.results");
+        CaffeineCacheMetrics.monitor(meterRegistry, modelCache, "documcheck.models");
+    }
+
+    public CheckResult check(InputStreamSource file, int fontSize, double indent, double lineSpacing, DocxEngine engine) throws Exception {
+        return check(file, fontSize, indent, lineSpacing, engine, processed -> { });
+    }
+
+    public CheckResult check(InputStreamSource file, int fontSize, double indent, double lineSpacing, DocxEngine engine,
+            IntConsumer progressListener) throws Exception {
+        long start = System.nanoTime();
+        ContentHash.Digest digest = ContentHash.digest(file);
+        CheckKey key = new CheckKey(digest.sha256(), fontSize, indent, lineSpacing, engine);
+        CheckResult cached = cachedResult(key);
+        if (cached != null) {
+            metrics.check(engine, "hit", true, System.nanoTime() - start);
+            return cached;
+        }
+
+        ModelKey modelKey = new ModelKey(digest.sha256(), engine);
+        CheckModel model = modelCache.getIfPresent(modelKey);
+        DocxToHtmlConverter converter = newConverter();
+        converter.setProgressListener(progressListener);
+        converter.setParallelRendering(parallelMinElements);
+        boolean success = false;
+        try {
+            StringWriter html = new StringWriter();
+            convert(converter, file, fontSize, indent, lineSpacing, model, modelKey, html);
+            CheckResult result = new CheckResult(html.toString(), converter.getFindings(), converter.getPictureHashes(),
+                    digest.sha256());
+            resultCache.put(key, result);
+            metrics.converted(converter, engine, digest.size());
+            success = true;
+            return result;
+        } finally {
+            metrics.check(engine, model != null ? "model" : "miss", success, System.nanoTime() - start);
+        }
+    }
+
+    // Первая половина stream, до первого байта ответа: хэш, кэш результата и разбор документа.
+    // Плохой документ отклоняется здесь, пока ещё можно ответить кодом ошибки
+    public PreparedCheck prepare(InputStreamSource file, int fontSize, double indent, double lineSpacing, DocxEngine engine) throws Exception {
+        long start = System.nanoTime();
+        ContentHash.Digest digest = ContentHash.digest(file);
+        CheckResult cached = cachedResult(new CheckKey(digest.sha256(), fontSize, indent, lineSpacing, engine));
+        if (cached != null) {
+            return new PreparedCheck(start, digest, fontSize, indent, lineSpacing, engine, cached, null, true);
+        }
+        ModelKey modelKey = new ModelKey(digest.sha256(), engine);
+        CheckModel model = modelCache.getIfPresent(modelKey);
+        boolean modelCached = model != null;
+        if (model == null) {
+            DocxDocument document = new DocxDocument();
+            try {
+                engine.reader().read(file, document);
+            } catch (Exception e) {
+                metrics.check(engine, "miss", false, System.nanoTime() - start);
+                throw e;
+            }
+            model = new CheckModel(document, FormatColumns.of(document.elements()));
+            modelCache.put(modelKey, model);
+        }
+        return new PreparedCheck(start, digest, fontSize, indent, lineSpacing, engine, null, model, modelCached);
+    }
+
+    // Отдаёт готовый результат из кэша, иначе проверяет разобранный документ, сразу записывая HTML в out
+    public CheckReport stream(PreparedCheck check, Writer out) throws Exception {
+        if (check.cached != null) {
+            out.write(check.cached.html());
+            out.flush();
+            metrics.check(check.engine, "hit", true, System.nanoTime() - check.start);
+            return check.cached.report();
+        }
+        DocxToHtmlConverter converter = newConverter();
+        boolean success = false;
+        try {
+            converter.convertDocxToHtmlWithErrors(null, check.indent, check.lineSpacing, check.fontSize, check.model.document(),
+                    check.model.columns(), out);
+            metrics.converted(converter, check.engine, check.digest.size());
+            success = true;
+            return new CheckReport(check.digest.sha256(), converter.getFindings());
+        } finally {
+            metrics.check(check.engine, check.modelCached ? "model" : "miss", success, System.nanoTime() - check.start);
+        }
+    }
+
+    public CacheStats cacheStats() {
+        return resultCache.stats();
+    }
+
+    public long cachedBytes() {
+        return resultCache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    private DocxToHtmlConverter newConverter() {
+        return new DocxToHtmlConverter(gostRuleEngine, pictureStore, textMeasurer);
+    }
+
+    // Готовая модель воспроизводится без разбора; иначе документ читается движком и модель запоминается попутно
+    private void convert(DocxToHtmlConverter converter, InputStreamSource file, int fontSize, double indent, double lineSpacing,
+            CheckModel model, ModelKey modelKey, Writer out) throws Exception {
+        if (model != null) {
+            converter.convertDocxToHtmlWithErrors(file, indent, lineSpacing, fontSize, model.document(), model.columns(), out);
+            return;
+        }
+        DocxReader recordingReader = (source, handler) -> {
+            DocxDocument recorded = new DocxDocument();
+            modelKey.engine().reader().read(source, recorded.recording(handler));
+            modelCache.put(modelKey, new CheckModel(recorded, FormatColumns.of(recorded.elements())));
+        };
+        converter.convertDocxToHtmlWithErrors(file, indent, lineSpacing, fontSize, recordingReader, out);
+    }
+
+    private CheckResult cachedResult(CheckKey key) {
+        CheckResult cached = resultCache.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        // картинки могли быть вытеснены из PictureStore - тогда ссылки в HTML уже не работают
+        for (String hash : cached.pictureHashes()) {
+            if (!pictureStore.contains(hash)) {
+                resultCache.invalidate(key);
+                return null;
+            }
+        }
+        return cached;
+    }
+}
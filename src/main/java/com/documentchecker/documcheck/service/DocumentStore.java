@@ -0,0 +1,179 @@
+package com.documentchecker.documcheck.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Загруженные документы во временных файлах вместо byte[] в HttpSession.
+ * Документ живёт ttl с момента последнего обращения; при превышении общего бюджета
+ * удаляются самые давно использованные. Читаются файлы через memory-mapped буфер,
+ * так что содержимое не копируется в кучу. Перед сохранением архив проверяется ArchiveGuard.
+ */
+@Service
+public class DocumentStore {
+
+    public record StoredDocument(String id, String filename, Path path, long size) {
+
+        public InputStreamSource source() {
+            return () -> new ByteBufferInputStream(map(path));
+        }
+    }
+
+    private static class Entry {
+        final StoredDocument document;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        Entry(StoredDocument document) {
+            this.document = document;
+        }
+    }
+
+    private final ArchiveGuard archiveGuard;
+    private final Path directory;
+    private final long maxBytes;
+    private final Duration ttl;
+    private final Map<String, Entry> documents = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    public DocumentStore(ArchiveGuard archiveGuard, @Value("${documcheck.store.dir:${java.io.tmpdir}/documcheck-store}") Path directory,
+            @Value("${documcheck.store.max-bytes:1073741824}") long maxBytes,
+            @Value("${documcheck.store.ttl:30m}") Duration ttl) throws IOException {
+        this.archiveGuard = archiveGuard;
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.ttl = ttl;
+    }
+
+    public StoredDocument save(MultipartFile file) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path path = directory.resolve(id + ".docx");
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        try {
+            archiveGuard.checkDocument(path);
+        } catch (IOException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        return register(new StoredDocument(id, file.getOriginalFilename(), path, Files.size(path)));
+    }
+
+    public Optional<StoredDocument> get(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Entry entry = documents.get(id);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        entry.lastAccess = System.currentTimeMillis();
+        return Optional.of(entry.document);
+    }
+
+    @Scheduled(fixedDelayString = "${documcheck.store.cleanup-interval:60000}")
+    public void removeExpired() {
+        long deadline = System.currentTimeMillis() - ttl.toMillis();
+        documents.values().stream()
+                .filter(entry -> entry.lastAccess < deadline)
+                .map(entry -> entry.document.id())
+                .toList()
+                .forEach(this::remove);
+    }
+
+    @PreDestroy
+    public void clear() {
+        documents.keySet().stream().toList().forEach(this::remove);
+    }
+
+    private StoredDocument register(StoredDocument document) {
+        documents.put(document.id(), new Entry(document));
+        totalBytes.addAndGet(document.size());
+        if (totalBytes.get() > maxBytes) {
+            evictLeastRecentlyUsed(document.id());
+        }
+        return document;
+    }
+
+    private synchronized void evictLeastRecentlyUsed(String keepId) {
+        var candidates = documents.values().stream()
+                .filter(entry -> !entry.document.id().equals(keepId))
+                .sorted(Comparator.comparingLong(entry -> entry.lastAccess))
+                .toList();
+        for (Entry entry : candidates) {
+            if (totalBytes.get() <= maxBytes) {
+                break;
+            }
+            remove(entry.document.id());
+        }
+    }
+
+    public void remove(String id) {
+        Entry entry = documents.remove(id);
+        if (entry == null) {
+            return;
+        }
+        totalBytes.addAndGet(-entry.document.size());
+        try {
+            Files.deleteIfExists(entry.document.path());
+        } catch (IOException e) {
+            System.out.println("Не удалось удалить " + entry.document.path() + ": " + e.getMessage());
+        }
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
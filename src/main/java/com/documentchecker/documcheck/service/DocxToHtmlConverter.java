@@ -1,116 +1,450 @@
 package com.documentchecker.documcheck.service; 
 
-import java.io.InputStream;
-import java.math.BigInteger;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.function.IntConsumer;
+
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.springframework.core.io.InputStreamSource;
+
+import com.documentchecker.documcheck.service.ParagraphClassifier.ParagraphRole;
+import com.documentchecker.documcheck.service.docx.DocxBodyHandler;
+import com.documentchecker.documcheck.service.docx.DocxEngine;
+import com.documentchecker.documcheck.service.docx.DocxListLevel;
+import com.documentchecker.documcheck.service.docx.DocxNumbering;
+import com.documentchecker.documcheck.service.docx.DocxPageLayout;
+import com.documentchecker.documcheck.service.docx.DocxParagraph;
+import com.documentchecker.documcheck.service.docx.DocxPicture;
+import com.documentchecker.documcheck.service.docx.DocxReader;
+import com.documentchecker.documcheck.service.docx.DocxRun;
+import com.documentchecker.documcheck.service.docx.DocxTable;
+import com.documentchecker.documcheck.service.rule.FormatColumns;
+import com.documentchecker.documcheck.service.rule.GostRuleEngine;
+import com.documentchecker.documcheck.service.rule.GostRuleSet;
+import com.documentchecker.documcheck.service.rule.RuleScope;
+import com.documentchecker.documcheck.service.rule.RuleViolation;
+import com.documentchecker.documcheck.service.rule.RuleViolations;
+
+
+public class DocxToHtmlConverter implements DocxBodyHandler {
 
-import org.apache.poi.xwpf.usermodel.*;
-import org.springframework.web.multipart.MultipartFile;
-import org.openxmlformats.schemas.wordprocessingml.x2006.main.*;
-
-
-public class DocxToHtmlConverter {
-
-    private static final double PAGE_HEIGHT_PT = 730.0;
     private static final double AVG_CHAR_HEIGHT_PT = 14.0;
-    private static final int AVG_CHARS_PER_LINE = 85;
+    // отступ уровня списка Word по умолчанию - 720 твипов
+    private static final double LIST_LEVEL_INDENT_PT = 36.0;
+    // padding 5px с двух сторон ячейки и рамка 1px, как в processTable
+    private static final double TABLE_CELL_PADDING_PT = 7.5;
+    private static final double TABLE_BORDER_PT = 0.75;
     
     double currentPageHeight = 0;
+
+    private final GostRuleEngine ruleEngine;
+    private final PictureStore pictureStore;
+    private final TextMeasurer textMeasurer;
+    private DocxPageLayout pageLayout = DocxPageLayout.DEFAULT;
+    // false, пока читатель не прислал разметку страницы; StaxDocxReader присылает её после тела
+    private boolean pageLayoutKnown;
+    private GostRuleSet ruleSet;
+    private Writer html;
+    private String headerHtml = "";
+    private String footerHtml = "";
+    private DocxNumbering numbering = DocxNumbering.EMPTY;
+    private Integer currentListNumId;
+    // Открытые теги вложенных списков текущего numId, по одному на уровень
+    private final Deque<String> openListTags = new ArrayDeque<>();
+    private int elementIndex;
+    private final List<CheckFinding> findings = new ArrayList<>();
+    private final Set<String> pictureHashes = new LinkedHashSet<>();
+    private IntConsumer progressListener = processed -> { };
+    // Нарушения, посчитанные заранее по столбцам; null - правила проверяются по ходу обхода
+    private RuleViolations violations;
+    private int paragraphCursor;
+    private long phaseStart;
+    private long openNanos;
+    private long headersNanos;
+    private long elementsNanos;
+    private int paragraphCount;
+    private long outputChars;
+    // Тело копится здесь, если включена параллельная вёрстка; null - элементы верстаются по мере чтения
+    private List<PendingElement> pending;
+    private int parallelMinElements;
+
+    // Элемент, проверенный и свёрстанный без учёта соседей: открытие списков и разрывы страниц расставляет place.
+    // pageHeight - оценка высоты на странице в пунктах
+    private record RenderedElement(String html, ElementErrors errors, List<String> pictures,
+            Integer listNumId, int listLevel, double pageHeight, boolean blank) {
+    }
+
+    // Нарушения одного элемента: сообщения для подсказки в HTML и нарушения с позицией в абзаце.
+    // Номер элемента неизвестен, пока элемент не выведен по порядку, поэтому находки строятся в place
+    private static final class ElementErrors {
+        private final Set<String> messages = new HashSet<>();
+        private final List<Located> located = new ArrayList<>(0);
+        private final List<RuleViolation> found = new ArrayList<>(2);
+        private int paragraph = -1;
+        private int offset;
+
+        private record Located(int paragraph, int run, int start, int end, RuleViolation violation) {
+        }
+
+        void startParagraph() {
+            paragraph++;
+            offset = 0;
+        }
+
+        // Начало фрагмента в тексте абзаца; позиция сдвигается на его длину
+        int advance(int length) {
+            int start = offset;
+            offset += length;
+            return start;
+        }
+
+        // Переносит нарушения, добавленные в found, с позицией фрагмента (run -1 - нарушение абзаца)
+        void locate(int run, int start, int end) {
+            for (RuleViolation violation : found) {
+                messages.add(violation.message());
+                located.add(new Located(paragraph, run, start, end, violation));
+            }
+            found.clear();
+        }
+    }
+
+    private record PendingElement(Object element, int firstParagraph, ParagraphRole role) {
+    }
+
+    public DocxToHtmlConverter(GostRuleEngine ruleEngine, PictureStore pictureStore, TextMeasurer textMeasurer) {
+        this.ruleEngine = ruleEngine;
+        this.pictureStore = pictureStore;
+        this.textMeasurer = textMeasurer;
+    }
     
-    public String convertDocxToHtmlWithErrors(MultipartFile file, double newIndent, double newLineSpacing, int newFontSize) throws Exception {
-        try (InputStream is = file.getInputStream(); XWPFDocument doc = new XWPFDocument(is)) {
-            StringBuilder html = new StringBuilder();
-            String headerHtml = extractHeaders(doc);
-            String footerHtml = extractFooters(doc);
-            html.append(headerHtml);
-
-            List<IBodyElement> elements = doc.getBodyElements();
-            
-            BigInteger currentListNumId = null;
-            String currentListTag = null;
-
-            for (IBodyElement el : elements) {
-                Set<String> paragraphErrors = new HashSet<>();
-                if (el instanceof XWPFParagraph) {
-                    XWPFParagraph p = (XWPFParagraph) el;
-                    BigInteger numId = p.getNumID();
-
-                    if (numId != null) {
-                        if (!numId.equals(currentListNumId)) {
-                            if (currentListNumId != null) {
-                                html.append("</").append(currentListTag).append(">\n");
-                            }
-                            currentListNumId = numId;
-                            currentListTag = getListTag(p); 
-                            html.append("<").append(currentListTag).append(">\n");
-                        }
-                        html.append(processListItem(p, paragraphErrors, newFontSize));
+    public String convertDocxToHtmlWithErrors(InputStreamSource file, double newIndent, double newLineSpacing, int newFontSize) throws Exception {
+        return convertDocxToHtmlWithErrors(file, newIndent, newLineSpacing, newFontSize, DocxEngine.POI);
+    }
 
-                    } else {
-                        if (currentListNumId != null) {
-                            html.append("</").append(currentListTag).append(">\n");
-                            currentListNumId = null; 
-                            currentListTag = null;
-                        }
-
-                        String style = p.getStyle();
-                        if (style != null && style.matches("Heading[1-6]")) {
-                            html.append(processHeading(p, paragraphErrors, newFontSize));
-                        } else {
-                            html.append(processParagraph(p, headerHtml, footerHtml, paragraphErrors, false, newFontSize, newIndent, newLineSpacing));
-                        }
-                    }
-                } else if (el instanceof XWPFTable) {
-                    if (currentListNumId != null) {
-                        html.append("</").append(currentListTag).append(">\n");
-                        currentListNumId = null;
-                        currentListTag = null;
-                    }
-                    html.append(processTable((XWPFTable) el, headerHtml, footerHtml, paragraphErrors, newFontSize, newIndent, newLineSpacing));
-                }
+    public String convertDocxToHtmlWithErrors(InputStreamSource file, double newIndent, double newLineSpacing, int newFontSize, DocxEngine engine) throws Exception {
+        StringWriter writer = new StringWriter();
+        convertDocxToHtmlWithErrors(file, newIndent, newLineSpacing, newFontSize, engine, writer);
+        return writer.toString();
+    }
+
+    // Пишет предпросмотр в out по мере обхода документа, не собирая весь HTML в памяти
+    public void convertDocxToHtmlWithErrors(InputStreamSource file, double newIndent, double newLineSpacing, int newFontSize, DocxEngine engine, Writer out) throws Exception {
+        convertDocxToHtmlWithErrors(file, newIndent, newLineSpacing, newFontSize, engine.reader(), out);
+    }
+
+    public void convertDocxToHtmlWithErrors(InputStreamSource file, double newIndent, double newLineSpacing, int newFontSize, DocxReader reader, Writer out) throws Exception {
+        convertDocxToHtmlWithErrors(file, newIndent, newLineSpacing, newFontSize, reader, null, out);
+    }
+
+    // columns - столбцы того же документа, который отдаёт reader; тогда все правила считаются одним проходом по массивам
+    public void convertDocxToHtmlWithErrors(InputStreamSource file, double newIndent, double newLineSpacing, int newFontSize, DocxReader reader,
+            FormatColumns columns, Writer out) throws Exception {
+        this.ruleSet = ruleEngine.ruleSet(newFontSize, newIndent, newLineSpacing);
+        this.violations = columns != null ? ruleSet.check(columns) : null;
+        this.paragraphCursor = 0;
+        this.html = out;
+        this.currentPageHeight = 0;
+        this.pageLayout = DocxPageLayout.DEFAULT;
+        this.pageLayoutKnown = false;
+        this.numbering = DocxNumbering.EMPTY;
+        this.currentListNumId = null;
+        this.openListTags.clear();
+        this.elementIndex = 0;
+        this.findings.clear();
+        this.pictureHashes.clear();
+        this.paragraphCount = 0;
+        this.outputChars = 0;
+        this.openNanos = 0;
+        this.headersNanos = 0;
+        this.pending = parallelMinElements > 0 ? new ArrayList<>() : null;
+        this.phaseStart = System.nanoTime();
+
+        reader.read(file, this);
+
+        if (pending != null) {
+            renderPending();
+            pending = null;
+        }
+        closeList();
+        html.flush();
+        elementsNanos = System.nanoTime() - phaseStart;
+    }
+
+    @Override
+    public void opened() {
+        long now = System.nanoTime();
+        openNanos = now - phaseStart;
+        phaseStart = now;
+    }
+
+    @Override
+    public void pageLayout(DocxPageLayout layout) {
+        this.pageLayout = layout;
+        this.pageLayoutKnown = true;
+    }
+
+    @Override
+    public void numbering(DocxNumbering numbering) {
+        this.numbering = numbering;
+    }
+
+    @Override
+    public void startBody(List<String> headerLines, List<String> footerLines) {
+        headerHtml = renderHeaderFooter("header", headerLines);
+        footerHtml = renderHeaderFooter("footer", footerLines);
+        write(headerHtml);
+        // без размеров страницы не расставить разрывы: тело копится до конца, как при параллельной вёрстке
+        if (!pageLayoutKnown && pending == null) {
+            pending = new ArrayList<>();
+        }
+        long now = System.nanoTime();
+        headersNanos = now - phaseStart;
+        phaseStart = now;
+    }
+
+    @Override
+    public void paragraph(DocxParagraph p) {
+        paragraphCount++;
+        int paragraphIndex = paragraphCursor++;
+        ParagraphRole role = ParagraphClassifier.classify(p);
+        if (pending != null) {
+            pending.add(new PendingElement(p, paragraphIndex, role));
+            return;
+        }
+        place(renderParagraph(p, paragraphIndex, role));
+    }
+
+    @Override
+    public void table(DocxTable table) {
+        int firstParagraph = paragraphCursor;
+        for (List<List<DocxParagraph>> row : table.rows()) {
+            for (List<DocxParagraph> cell : row) {
+                paragraphCursor += cell.size();
             }
+        }
+        if (pending != null) {
+            pending.add(new PendingElement(table, firstParagraph, ParagraphRole.TABLE_CELL));
+            return;
+        }
+        place(renderTable(table, firstParagraph));
+    }
+
+    /**
+     * Включает параллельную вёрстку: тело сначала читается целиком, затем элементы проверяются
+     * и верстаются на ForkJoinPool, если их не меньше minElements, а разрывы страниц и списки
+     * расставляются последовательным проходом по готовым элементам - результат тот же, что
+     * при обычном обходе. 0 - верстать по мере чтения, как нужно для потоковой выдачи.
+     */
+    public void setParallelRendering(int minElements) {
+        this.parallelMinElements = minElements;
+    }
+
+    // Вызывается после каждого обработанного элемента тела с их общим количеством
+    public void setProgressListener(IntConsumer progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    // Время фаз последней конвертации: открытие архива, колонтитулы, обход тела с проверкой и вёрсткой
+    public long getOpenNanos() {
+        return openNanos;
+    }
+
+    public long getHeadersNanos() {
+        return headersNanos;
+    }
 
-            if (currentListNumId != null) {
-                html.append("</").append(currentListTag).append(">\n");
+    public long getElementsNanos() {
+        return elementsNanos;
+    }
+
+    public int getParagraphCount() {
+        return paragraphCount;
+    }
+
+    public long getOutputChars() {
+        return outputChars;
+    }
+
+    public List<CheckFinding> getFindings() {
+        return List.copyOf(findings);
+    }
+
+    public Set<String> getPictureHashes() {
+        return Set.copyOf(pictureHashes);
+    }
+
+    private void recordFindings(ElementErrors errors) {
+        for (ElementErrors.Located error : errors.located) {
+            RuleViolation violation = error.violation();
+            findings.add(new CheckFinding(elementIndex, error.paragraph(), error.run(), error.start(), error.end(),
+                    violation.rule(), violation.actual(), violation.expected(), violation.message()));
+        }
+        elementIndex++;
+        progressListener.accept(elementIndex);
+    }
+
+    private void write(String chunk) {
+        try {
+            html.write(chunk);
+            outputChars += chunk.length();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void renderPending() {
+        boolean parallel = parallelMinElements > 0 && pending.size() >= parallelMinElements;
+        RenderedElement[] rendered = (parallel ? pending.parallelStream() : pending.stream())
+                .map(element -> element.element() instanceof DocxParagraph p
+                        ? renderParagraph(p, element.firstParagraph(), element.role())
+                        : renderTable((DocxTable) element.element(), element.firstParagraph()))
+                .toArray(RenderedElement[]::new);
+        for (RenderedElement element : rendered) {
+            place(element);
+        }
+    }
+
+    private RenderedElement renderParagraph(DocxParagraph p, int paragraphIndex, ParagraphRole role) {
+        ElementErrors paragraphErrors = new ElementErrors();
+        if (role == ParagraphRole.NUMBERED) {
+            int level = Math.max(p.numIlvl(), 0);
+            double width = pageLayout.contentWidthPt() - LIST_LEVEL_INDENT_PT * (level + 1);
+            return new RenderedElement(processListItem(p, paragraphIndex, paragraphErrors), paragraphErrors, List.of(),
+                    p.numId(), level, estimateParagraphHeight(p, width), false);
+        }
+        if (role == ParagraphRole.STYLED_HEADING) {
+            return new RenderedElement(processHeading(p, paragraphIndex, paragraphErrors), paragraphErrors, List.of(),
+                    null, 0, estimateParagraphHeight(p, pageLayout.contentWidthPt()), false);
+        }
+        List<String> pictures = new ArrayList<>(0);
+        String content = processParagraph(p, paragraphIndex, paragraphErrors, pictures, role);
+        boolean blank = p.text().trim().isEmpty() && p.runs().isEmpty();
+        return new RenderedElement(content, paragraphErrors, pictures, null, 0,
+                estimateParagraphHeight(p, pageLayout.contentWidthPt()), blank);
+    }
+
+    private RenderedElement renderTable(DocxTable table, int firstParagraph) {
+        ElementErrors tableErrors = new ElementErrors();
+        List<String> pictures = new ArrayList<>(0);
+        return new RenderedElement(processTable(table, firstParagraph, tableErrors, pictures), tableErrors, pictures,
+                null, 0, estimateTableHeight(table), false);
+    }
+
+    // Выводит элемент по порядку: открывает и закрывает списки, переносит элемент на новую страницу
+    private void place(RenderedElement element) {
+        Integer numId = element.listNumId();
+        if (numId != null) {
+            if (!numId.equals(currentListNumId)) {
+                closeList();
+                currentListNumId = numId;
+            }
+            int depth = element.listLevel() + 1;
+            while (openListTags.size() > depth) {
+                write("</" + openListTags.pop() + ">\n");
+            }
+            while (openListTags.size() < depth) {
+                openListLevel(numId, openListTags.size());
             }
-            
-            
-            return html.toString();
+        } else {
+            closeList();
+        }
+        if (currentPageHeight + element.pageHeight() > pageLayout.contentHeightPt() && currentPageHeight > 0) {
+            breakPage(numId != null);
+        }
+        currentPageHeight += element.pageHeight();
+        if (element.blank()) {
+            currentPageHeight += AVG_CHAR_HEIGHT_PT;
+        }
+        write(element.html());
+        pictureHashes.addAll(element.pictures());
+        recordFindings(element.errors());
+    }
+
+    // Внутри списка разрыв оборачивается в li с display:block - такой пункт не сбивает нумерацию
+    private void breakPage(boolean insideList) {
+        if (insideList) {
+            write("<li style='display:block'>");
+        }
+        write(footerHtml);
+        write("<div class='page-break'></div>");
+        write(headerHtml);
+        if (insideList) {
+            write("</li>\n");
+        }
+        currentPageHeight = 0;
+    }
+
+    private void closeList() {
+        while (!openListTags.isEmpty()) {
+            write("</" + openListTags.pop() + ">\n");
+        }
+        currentListNumId = null;
+    }
+
+    // Вид списка и первый номер берутся из нумерации, разобранной при загрузке документа
+    private void openListLevel(int numId, int ilvl) {
+        DocxListLevel level = numbering.level(numId, ilvl);
+        String numFmt = level != null ? level.numFmt() : null;
+        String type = numFmt == null ? null : switch (numFmt) {
+            case "decimal", "decimalZero" -> "1";
+            case "lowerLetter" -> "a";
+            case "upperLetter" -> "A";
+            case "lowerRoman" -> "i";
+            case "upperRoman" -> "I";
+            default -> null;
+        };
+        if (type == null) {
+            openListTags.push("ul");
+            write("<ul>\n");
+            return;
         }
+        StringBuilder tag = new StringBuilder("<ol");
+        if (!"1".equals(type)) {
+            tag.append(" type='").append(type).append("'");
+        }
+        if (level.start() != 1) {
+            tag.append(" start='").append(level.start()).append("'");
+        }
+        openListTags.push("ol");
+        write(tag.append(">\n").toString());
     }
 
-    private String processHeading(XWPFParagraph p, Set<String> paragraphErrors, int fontSize) {
-        int level = Integer.parseInt(p.getStyle().substring("Heading".length()));
+    private String processHeading(DocxParagraph p, int paragraphIndex, ElementErrors paragraphErrors) {
+        paragraphErrors.startParagraph();
+        int level = Integer.parseInt(p.styleId().substring("Heading".length()));
         String tag = "h" + level;
-        String align = getAlign(p.getAlignment());
+        String align = getAlign(p.alignment());
         StringBuilder sb = new StringBuilder();
         sb.append("<").append(tag).append(" style='text-align:")
           .append(align).append(";'>");
-        for (XWPFRun r : p.getRuns()) {
-            sb.append(processRun(r, paragraphErrors, fontSize));
+        List<DocxRun> runs = p.runs();
+        for (int i = 0; i < runs.size(); i++) {
+            sb.append(processRun(runs.get(i), i, runIndex(paragraphIndex, i), paragraphErrors));
         }
         sb.append("</").append(tag).append(">\n");
         return sb.toString();
     }
 
-    private String processPicturesFromParagraph(XWPFParagraph p) throws Exception {
+    private String processPicturesFromParagraph(DocxParagraph p, List<String> pictures) {
         StringBuilder sb = new StringBuilder();
 
-        for (XWPFRun run : p.getRuns()) {
-            List<XWPFPicture> pictures = run.getEmbeddedPictures();
-            for (XWPFPicture picture : pictures) {
-                XWPFPictureData pictureData = picture.getPictureData();
-                if (pictureData == null) continue;
-
-                String base64 = java.util.Base64.getEncoder().encodeToString(pictureData.getData());
-                String extension = pictureData.suggestFileExtension().toLowerCase(Locale.ROOT);
-                String mimeType = getImageMimeType(extension);
+        for (DocxRun run : p.runs()) {
+            for (DocxPicture picture : run.pictures()) {
+                String hash = pictureStore.put(picture.data(), getImageMimeType(picture.extension()));
+                pictures.add(hash);
 
-                sb.append("<img src='data:").append(mimeType).append(";base64,")
-                .append(base64).append("' style='max-width:100%; height:auto;' />\n");
+                sb.append("<img src='/pictures/").append(hash)
+                .append("' loading='lazy' style='max-width:100%; height:auto;' />\n");
             }
         }
 
@@ -131,165 +465,79 @@ public class DocxToHtmlConverter {
         };
     }
     
-    private String getListTag(XWPFParagraph p) {
-        try {
-            BigInteger numId = p.getNumID();
-            if (numId == null) return "ul"; 
-
-            XWPFDocument doc = p.getDocument();
-            XWPFNumbering numbering = doc.getNumbering();
-            if (numbering == null) return "ul";
-
-            XWPFNum num = numbering.getNum(numId);
-            if (num == null) return "ul";
-
-            BigInteger abstractNumId = num.getCTNum().getAbstractNumId().getVal();
-            if (abstractNumId == null) return "ul";
-
-            XWPFAbstractNum absNum = numbering.getAbstractNum(abstractNumId);
-            if (absNum == null || absNum.getCTAbstractNum() == null) return "ul";
-            
-            CTAbstractNum ctAbsNum = absNum.getCTAbstractNum();
-
-            BigInteger ilvl = p.getNumIlvl();
-            int level = (ilvl != null) ? ilvl.intValue() : 0;
-            
-            if (ctAbsNum.sizeOfLvlArray() <= level) {
-                return "ul";
-            }
-
-            CTLvl ctLvl = ctAbsNum.getLvlArray(level);
-            if (ctLvl == null || ctLvl.getNumFmt() == null || ctLvl.getNumFmt().getVal() == null) {
-                return "ul";
-            }
-
-            STNumberFormat.Enum fmt = ctLvl.getNumFmt().getVal();
-            
-            return "decimal".equals(fmt.toString()) ? "ol" : "ul";
-
-        } catch (Exception e) {
-            e.printStackTrace(); 
-            return "ul"; 
-        }
-    }
-    
-    private String processListItem(XWPFParagraph p, Set<String> paragraphErrors, int fontSize) {
+    private String processListItem(DocxParagraph p, int paragraphIndex, ElementErrors paragraphErrors) {
+        paragraphErrors.startParagraph();
         StringBuilder sb = new StringBuilder();
-        
-        int level = p.getNumIlvl() != null ? p.getNumIlvl().intValue() : 0;
-        
-        sb.append("<li style='margin-left: ").append(level * 1.5).append("em;'>");
-        
-        
+        sb.append("<li>");
 
-        for (XWPFRun r : p.getRuns()) {
-            sb.append(processRun(r, paragraphErrors, fontSize));
+        List<DocxRun> runs = p.runs();
+        for (int i = 0; i < runs.size(); i++) {
+            sb.append(processRun(runs.get(i), i, runIndex(paragraphIndex, i), paragraphErrors));
         }
         
         sb.append("</li>\n");
         return sb.toString();
     }
 
-    private String  processRun(XWPFRun r, Set<String> paragraphErrors, int fontSize) {
+    private String  processRun(DocxRun r, int run, int runIndex, ElementErrors paragraphErrors) {
         StringBuilder sb = new StringBuilder();
         String text = r.text();
-        System.out.println(text);
         if (text == null || text.isEmpty()) return "";
-        if (r.getCTR() != null && r.getCTR().getRPr() != null && 
-            r.getCTR().getRPr().getSzList() != null && !r.getCTR().getRPr().getSzList().isEmpty()) { 
-                int fontSizePts = r.getFontSize();
-                if (fontSizePts != -1 && fontSizePts != fontSize) {
-                    
-            
-                    paragraphErrors.add("Неверный размер шрифта: " + fontSizePts + "pt (ожидается " + fontSize + "pt)");
-                }
-        } 
-        
-        String fontFamily = r.getFontFamily();
-
-        if (fontFamily != null && !"Times New Roman".equalsIgnoreCase(fontFamily)) {
-            paragraphErrors.add("Неверный шрифт: " + fontFamily);
+        int start = paragraphErrors.advance(text.length());
+        if (violations != null) {
+            violations.runErrors(runIndex, paragraphErrors.found);
+        } else {
+            ruleSet.checkRun(r, paragraphErrors.found);
         }
+        paragraphErrors.locate(run, start, start + text.length());
 
-        fontFamily = r.getFontFamily() != null ? r.getFontFamily() : "Times New Roman";
-        String font = r.getFontFamily() == null ? "Times New Roman" : r.getFontFamily();
+        String font = r.fontFamily() == null ? "Times New Roman" : r.fontFamily();
         
-        int size = r.getFontSize() <= 0 ? 14 : r.getFontSize();
+        int size = r.fontSize() <= 0 ? 14 : r.fontSize();
         
         sb.append("<span style='font-family:").append(font).append("; font-size:")
           .append(size).append("pt;");
         
-          if (!paragraphErrors.isEmpty()) {
+          if (!paragraphErrors.messages.isEmpty()) {
                         sb.append(" background-color: yellow; border-bottom: 1px dashed red; cursor: help;'")
-                            .append(" title='").append(String.valueOf(paragraphErrors)).append("'");
+                            .append(" title='").append(String.valueOf(paragraphErrors.messages)).append("'");
                     } else {
                         sb.append("'");
                     }
         sb.append(">");
 
-        if (r.isBold()) sb.append("<b>");
-        if (r.isItalic()) sb.append("<i>");
-        if (r.getUnderline() != UnderlinePatterns.NONE) sb.append("<u>");
+        if (r.bold()) sb.append("<b>");
+        if (r.italic()) sb.append("<i>");
+        if (r.underline()) sb.append("<u>");
 
         sb.append(escapeHtml(text));
 
-        if (r.getUnderline() != UnderlinePatterns.NONE) sb.append("</u>");
-        if (r.isItalic()) sb.append("</i>");
-        if (r.isBold()) sb.append("</b>");
+        if (r.underline()) sb.append("</u>");
+        if (r.italic()) sb.append("</i>");
+        if (r.bold()) sb.append("</b>");
         sb.append("</span>");
 
         return sb.toString();
     }
 
-    private String processParagraph(XWPFParagraph p, String headerHtml, String footerHtml, Set<String> paragraphErrors, boolean isInsideTable, int newFontSize, double newIndent, double newLineSpacing) {
-        boolean isHeading = isHeading(p);
-        boolean isTitlePageElement = isTitlePageElement(p);
-        boolean isListItem = isListItem(p);
-        
-        if (!isInsideTable) {
-            if (isTitlePageElement || isListItem) {
-            } else if (isHeading) {
-                
-                    if (p.getAlignment() != ParagraphAlignment.CENTER) {
-                        paragraphErrors.add("Заголовок не выровнен по центру");
-                    }
-                
-            } else {
-                
-                if (p.getAlignment() != ParagraphAlignment.BOTH) {
-                    paragraphErrors.add("Текст не выровнен по ширине");
-                }
-                int indent = getParagraphFirstLineIndent(p);
-                double cm = newIndent * 567.0;
-                if (!isListItem(p) && (indent < cm - 40 || indent > cm + 40)) {
-                    paragraphErrors.add("Неверный отступ первой строки: " + indent + " (ожидается ~" + newIndent + "см)");
-                }
-                if (p.getSpacingBetween() != -1 || p.getSpacingBetween() != newLineSpacing) {
-                    paragraphErrors.add("Неверный межстрочный интервал: " + p.getSpacingBetween() + " (ожидается "+ newLineSpacing +")");
-                }
-            }
+    private String processParagraph(DocxParagraph p, int paragraphIndex, ElementErrors paragraphErrors, List<String> pictures,
+            ParagraphRole role) {
+        paragraphErrors.startParagraph();
+        boolean isInsideTable = role == ParagraphRole.TABLE_CELL;
+        if (role == ParagraphRole.HEADING) {
+            checkParagraph(RuleScope.HEADING, p, paragraphIndex, paragraphErrors);
+        } else if (role == ParagraphRole.BODY) {
+            checkParagraph(RuleScope.PARAGRAPH, p, paragraphIndex, paragraphErrors);
         }
 
-        String align = getAlign(p.getAlignment());
-        String indent = isInsideTable ? "0" : twipToCm(p.getFirstLineIndent());
+        String align = getAlign(p.alignment());
+        String indent = isInsideTable ? "0" : twipToCm(p.firstLineIndent());
 
         StringBuilder sb = new StringBuilder();
 
-        if (!isInsideTable) {
-            double paragraphHeight = estimateParagraphHeight(p);
-            if (currentPageHeight + paragraphHeight > PAGE_HEIGHT_PT && currentPageHeight > 0) {
-                sb.append(footerHtml);
-                sb.append("<div class='page-break'></div>");
-                currentPageHeight = 0;
-                sb.append(headerHtml);
-            }
-            currentPageHeight += paragraphHeight;
-        }
-
-        if (p.getText().trim().isEmpty() && p.getRuns().isEmpty()) {
+        if (p.text().trim().isEmpty() && p.runs().isEmpty()) {
             if (!isInsideTable) {
                 sb.append("<p style='margin:0; padding:0; height:").append(AVG_CHAR_HEIGHT_PT).append("pt;'>&nbsp;</p>");
-                currentPageHeight += AVG_CHAR_HEIGHT_PT;
             } else {
                 sb.append("<p style='margin:0; padding:0;'>&nbsp;</p>");
             }
@@ -300,36 +548,46 @@ public class DocxToHtmlConverter {
         .append(align).append("; text-indent:")
         .append(indent).append("cm; margin: 0; padding: 0;'>");
 
-        try {
-            sb.append(processPicturesFromParagraph(p));
-        } catch (Exception e) {
-            e.printStackTrace(); 
-        }
-        for (XWPFRun r : p.getRuns()) {
-            sb.append(processRun(r, paragraphErrors, newFontSize));
+        sb.append(processPicturesFromParagraph(p, pictures));
+        List<DocxRun> runs = p.runs();
+        for (int i = 0; i < runs.size(); i++) {
+            sb.append(processRun(runs.get(i), i, runIndex(paragraphIndex, i), paragraphErrors));
         }
 
         sb.append("</p>\n");
         return sb.toString();
     }
 
+    private void checkParagraph(RuleScope scope, DocxParagraph p, int paragraphIndex, ElementErrors paragraphErrors) {
+        if (violations != null) {
+            violations.paragraphErrors(scope, paragraphIndex, paragraphErrors.found);
+        } else {
+            ruleSet.checkParagraph(scope, p, paragraphErrors.found);
+        }
+        paragraphErrors.locate(-1, -1, -1);
+    }
+
+    private int runIndex(int paragraphIndex, int run) {
+        return violations != null ? violations.columns().firstRun(paragraphIndex) + run : -1;
+    }
+
     private String twipToCm(int tw) {
         double cm = tw / 567.0;
         return String.format(Locale.US, "%.2f", cm);
     }
 
-    private String processTable(XWPFTable table, String headerHtml, String footerHtml, Set<String> paragraphErrors, int newFontSize, double newIndent, double newLineSpacing) {
-        
+    private String processTable(DocxTable table, int firstParagraph, ElementErrors paragraphErrors, List<String> pictures) {
+        int paragraphIndex = firstParagraph;
         StringBuilder html = new StringBuilder();
         html.append("<table border='1' style='border-collapse: collapse; width: 100%;'>");
 
-        for (XWPFTableRow row : table.getRows()) {
+        for (List<List<DocxParagraph>> row : table.rows()) {
             html.append("<tr>");
-            for (XWPFTableCell cell : row.getTableCells()) {
+            for (List<DocxParagraph> cell : row) {
 
                 html.append("<td style='padding: 5px;'>");
-                for (XWPFParagraph paragraph : cell.getParagraphs()) {
-                    html.append(processParagraph(paragraph, headerHtml, footerHtml, paragraphErrors, true, newFontSize, newIndent, newLineSpacing));
+                for (DocxParagraph paragraph : cell) {
+                    html.append(processParagraph(paragraph, paragraphIndex++, paragraphErrors, pictures, ParagraphRole.TABLE_CELL));
                 }
 
                 html.append("</td>");
@@ -341,47 +599,45 @@ public class DocxToHtmlConverter {
         return html.toString();
     }
 
-    private double estimateParagraphHeight(XWPFParagraph para) {
+    private double estimateParagraphHeight(DocxParagraph para, double widthPt) {
         double height = 0;
-        height += convertTwipsToPt(para.getSpacingBefore());
-        height += convertTwipsToPt(para.getSpacingAfter());
-
-        String text = para.getText();
-        if (!text.isEmpty()) {
-            double lineSpacing = para.getSpacingBetween() > 0 ? para.getSpacingBetween() : 1.0;
-            int lineCount = (int) Math.ceil((double) text.length() / AVG_CHARS_PER_LINE);
-            if (lineCount == 0) lineCount = 1;
-            height += lineCount * AVG_CHAR_HEIGHT_PT * lineSpacing;
-        } else {
-            height += AVG_CHAR_HEIGHT_PT;
-        }
+        height += convertTwipsToPt(para.spacingBefore());
+        height += convertTwipsToPt(para.spacingAfter());
+
+        double textHeight = textMeasurer.paragraphHeight(para, widthPt);
+        height += textHeight > 0 ? textHeight : AVG_CHAR_HEIGHT_PT;
         return height;
     }
-    
-    private String extractHeaders(XWPFDocument doc) {
-        StringBuilder headersHtml = new StringBuilder();
-        if (doc.getHeaderList() != null && !doc.getHeaderList().isEmpty()) {
-            XWPFHeader header = doc.getHeaderList().get(0);
-            headersHtml.append("<div class='header'>");
-            for (XWPFParagraph p : header.getParagraphs()) {
-                headersHtml.append("<p>").append(escapeHtml(p.getText())).append("</p>");
+
+    // Строки таблицы по очереди: высота строки - самая высокая ячейка, ячейки делят ширину поровну
+    private double estimateTableHeight(DocxTable table) {
+        double height = TABLE_BORDER_PT;
+        for (List<List<DocxParagraph>> row : table.rows()) {
+            double cellWidth = pageLayout.contentWidthPt() / Math.max(row.size(), 1) - TABLE_CELL_PADDING_PT;
+            double rowHeight = 0;
+            for (List<DocxParagraph> cell : row) {
+                double cellHeight = 0;
+                for (DocxParagraph paragraph : cell) {
+                    cellHeight += estimateParagraphHeight(paragraph, cellWidth);
+                }
+                rowHeight = Math.max(rowHeight, cellHeight);
             }
-            headersHtml.append("</div>");
+            height += rowHeight + TABLE_CELL_PADDING_PT + TABLE_BORDER_PT;
         }
-        return headersHtml.toString();
+        return height;
     }
-
-    private String extractFooters(XWPFDocument doc) {
-        StringBuilder footersHtml = new StringBuilder();
-        if (doc.getFooterList() != null && !doc.getFooterList().isEmpty()) {
-            XWPFFooter footer = doc.getFooterList().get(0);
-            footersHtml.append("<div class='footer'>");
-            for (XWPFParagraph p : footer.getParagraphs()) {
-                footersHtml.append("<p>").append(escapeHtml(p.getText())).append("</p>");
-            }
-            footersHtml.append("</div>");
+    
+    private String renderHeaderFooter(String cssClass, List<String> lines) {
+        if (lines == null) {
+            return "";
         }
-        return footersHtml.toString();
+        StringBuilder sb = new StringBuilder();
+        sb.append("<div class='").append(cssClass).append("'>");
+        for (String line : lines) {
+            sb.append("<p>").append(escapeHtml(line)).append("</p>");
+        }
+        sb.append("</div>");
+        return sb.toString();
     }
 
     private String escapeHtml(String text) {
@@ -401,61 +657,4 @@ public class DocxToHtmlConverter {
         if (twips <= 0) return 0;
         return twips / 20.0;
     }
-    
-    private boolean isListItem(XWPFParagraph para) {
-        String text = para.getText().trim();
-        return text.startsWith("-") || text.startsWith("*") || (text.matches(".*\\.{3,}.*") && text.matches(".*\\d$"));
-    }
-
-    private boolean isTitlePageElement(XWPFParagraph para) {
-        return para.getDocument().getPosOfParagraph(para) < 20; 
-    }
-
-    private boolean isHeading(XWPFParagraph para) {
-        String text = para.getText().trim();
-        if (text.isEmpty() || text.length() > 40 || isListItem(para) || isTitlePageElement(para)) {
-            return false;
-        }
-        boolean isAllBold = para.getRuns().stream().allMatch(XWPFRun::isBold);
-        if (isAllBold && !text.endsWith(".") && para.getAlignment() == ParagraphAlignment.CENTER) {
-            return true;
-        }
-
-        if (text.equals(text.toUpperCase()) || text.length() > 5 || !text.matches(".*\\d.*")) {
-             return true;
-        }
-        
-        return false;
-    }
-
-    private int getParagraphFirstLineIndent(XWPFParagraph para) {
-        if (para.getFirstLineIndent() != -1) {
-            return para.getFirstLineIndent();
-        }
-
-        if (para.getStyleID() != null) {
-            XWPFStyle style = para.getDocument().getStyles().getStyle(para.getStyleID());
-
-            if (style != null && style.getCTStyle() != null && style.getCTStyle().getPPr() != null) {
-                if (style.getCTStyle().getPPr() instanceof CTPPr) {
-                        CTPPr ppr = (CTPPr) style.getCTStyle().getPPr();
-                    
-                
-
-                if (ppr.getInd() != null) {
-                    CTInd ind = ppr.getInd();
-
-                    if (ind.isSetFirstLine()) {
-                        Object firstLineRaw = ind.getFirstLine();
-
-                        if (firstLineRaw instanceof BigInteger) {
-                            return ((BigInteger) firstLineRaw).intValue();
-                        }
-                    }
-                }
-            }
-            }
-        }
-        return -1; 
-    }
 }
@@ -0,0 +1,129 @@
+package com.documentchecker.documcheck.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Компактная двоичная запись находок для отчётов на десятки тысяч нарушений.
+ * Все строки (правило, значения, сообщение) пишутся один раз в таблицу строк, находка ссылается на них номером.
+ *
+ * Формат: "DCF1", число строк, строки (длина в байтах UTF-8 и байты), число находок, затем для каждой находки
+ * разница номера элемента с предыдущей находкой (zigzag), paragraph, run + 1, start + 1, end + 1,
+ * номер строки правила, номера строк actual и expected (+1, 0 - null) и номер строки сообщения.
+ * Все числа - беззнаковые varint, как в protobuf.
+ */
+public final class FindingsCodec {
+
+    public static final String MEDIA_TYPE = "application/vnd.documcheck.findings";
+
+    private static final byte[] MAGIC = {'D', 'C', 'F', '1'};
+
+    private FindingsCodec() {
+    }
+
+    public static byte[] encode(List<CheckFinding> findings) {
+        Map<String, Integer> ids = new HashMap<>();
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(findings.size() * 12);
+        int previousElement = 0;
+        for (CheckFinding finding : findings) {
+            int delta = finding.elementIndex() - previousElement;
+            previousElement = finding.elementIndex();
+            writeVarint(body, (delta << 1) ^ (delta >> 31));
+            writeVarint(body, finding.paragraph());
+            writeVarint(body, finding.run() + 1);
+            writeVarint(body, finding.start() + 1);
+            writeVarint(body, finding.end() + 1);
+            writeVarint(body, stringId(finding.rule(), ids, strings));
+            writeVarint(body, finding.actual() != null ? stringId(finding.actual(), ids, strings) + 1 : 0);
+            writeVarint(body, finding.expected() != null ? stringId(finding.expected(), ids, strings) + 1 : 0);
+            writeVarint(body, stringId(finding.message(), ids, strings));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(MAGIC.length + 10 + strings.size() + body.size());
+        out.writeBytes(MAGIC);
+        writeVarint(out, ids.size());
+        out.writeBytes(strings.toByteArray());
+        writeVarint(out, findings.size());
+        out.writeBytes(body.toByteArray());
+        return out.toByteArray();
+    }
+
+    // Обратное к encode; повреждённые данные - IllegalArgumentException
+    public static List<CheckFinding> decode(byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            in.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IllegalArgumentException("Неизвестный формат находок");
+            }
+            String[] strings = new String[readVarint(in)];
+            for (int i = 0; i < strings.length; i++) {
+                int length = readVarint(in);
+                strings[i] = new String(data, in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+            }
+            int count = readVarint(in);
+            List<CheckFinding> findings = new ArrayList<>(Math.min(count, data.length));
+            int element = 0;
+            for (int i = 0; i < count; i++) {
+                int delta = readVarint(in);
+                element += (delta >>> 1) ^ -(delta & 1);
+                int paragraph = readVarint(in);
+                int run = readVarint(in) - 1;
+                int start = readVarint(in) - 1;
+                int end = readVarint(in) - 1;
+                String rule = strings[readVarint(in)];
+                int actual = readVarint(in);
+                int expected = readVarint(in);
+                findings.add(new CheckFinding(element, paragraph, run, start, end, rule,
+                        actual > 0 ? strings[actual - 1] : null,
+                        expected > 0 ? strings[expected - 1] : null,
+                        strings[readVarint(in)]));
+            }
+            return findings;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Повреждённые данные находок", e);
+        }
+    }
+
+    private static int stringId(String value, Map<String, Integer> ids, ByteArrayOutputStream strings) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = ids.size();
+            ids.put(value, id);
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(strings, bytes.length);
+            strings.writeBytes(bytes);
+        }
+        return id;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Слишком длинный varint");
+    }
+}
@@ -0,0 +1,228 @@
+package com.documentchecker.documcheck.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import com.documentchecker.documcheck.dto.HistoryEntry;
+import com.documentchecker.documcheck.dto.HistoryItem;
+import com.documentchecker.documcheck.dto.HistoryPage;
+import com.documentchecker.documcheck.dto.HistoryReport;
+import com.documentchecker.documcheck.model.User;
+import com.documentchecker.documcheck.repository.HistoryRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * История проверок. Запись отложенная: record только кладёт строку в ограниченную очередь,
+ * а flush раз в documcheck.history.flush-interval вставляет накопленное пакетами JDBC,
+ * так что проверка не ждёт базу. При переполнении очереди строка отбрасывается и считается
+ * в documcheck.history.dropped. Чтение - страницами по ключу (date_time, id).
+ *
+ * Вместе со строкой сохраняются SHA-256 документа и находки (FindingsCodec, сжатый Deflate),
+ * так что прошлая проверка открывается без повторной загрузки. Сжатие идёт уже в record, чтобы
+ * очередь держала только сжатые байты, а не полные отчёты; отчёт больше
+ * documcheck.history.max-report-bytes не сохраняется, остаётся только число находок.
+ */
+@Service
+public class HistoryService {
+
+    private static final String INSERT = "insert into history (document_name, date_time, user_id, content_hash, findings_count, report)"
+            + " values (?, ?, ?, ?, ?, ?)";
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // report - сжатые находки или null, если отчёт больше лимита
+    private record Pending(long userId, String documentName, LocalDateTime dateTime, String contentHash, int findingsCount,
+            byte[] report) {
+    }
+
+    private record CursorKey(LocalDateTime dateTime, long id) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HistoryRepository historyRepository;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final int maxReportBytes;
+    private final Counter dropped;
+
+    public HistoryService(JdbcTemplate jdbcTemplate, HistoryRepository historyRepository,
+            @Value("${documcheck.history.queue-capacity:10000}") int queueCapacity,
+            @Value("${documcheck.history.batch-size:500}") int batchSize,
+            @Value("${documcheck.history.max-report-bytes:1048576}") int maxReportBytes,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.historyRepository = historyRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxReportBytes = maxReportBytes;
+        this.dropped = Counter.builder("documcheck.history.dropped").register(meterRegistry);
+        Gauge.builder("documcheck.history.queued", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    // Пользователь из JWT текущего запроса; null для анонимной проверки
+    public static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof User user ? user.getId() : null;
+    }
+
+    public void record(Long userId, String documentName, CheckReport report) {
+        if (userId == null) {
+            return;
+        }
+        String name = documentName == null || documentName.isBlank() ? "document.docx" : documentName;
+        if (name.length() > MAX_NAME_LENGTH) {
+            name = name.substring(0, MAX_NAME_LENGTH);
+        }
+        LocalDateTime dateTime = LocalDateTime.now();
+        // при полной очереди строка всё равно будет отброшена - не сжимаем зря
+        if (queue.remainingCapacity() == 0) {
+            dropped.increment();
+            return;
+        }
+        byte[] compressed = compress(FindingsCodec.encode(report.findings()));
+        Pending pending = new Pending(userId, name, dateTime, report.contentHash(), report.findings().size(),
+                compressed.length <= maxReportBytes ? compressed : null);
+        if (!queue.offer(pending)) {
+            dropped.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${documcheck.history.flush-interval:1000}")
+    public synchronized void flush() {
+        List<Pending> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (statement, pending) -> {
+                    statement.setString(1, pending.documentName());
+                    statement.setTimestamp(2, Timestamp.valueOf(pending.dateTime()));
+                    statement.setLong(3, pending.userId());
+                    statement.setString(4, pending.contentHash());
+                    statement.setInt(5, pending.findingsCount());
+                    if (pending.report() != null) {
+                        statement.setBytes(6, pending.report());
+                    } else {
+                        statement.setNull(6, Types.VARBINARY);
+                    }
+                });
+            } catch (DataAccessException e) {
+                System.out.println("ОШИБКА : " + e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    public HistoryPage page(Long userId, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // на одну строку больше, чтобы знать, есть ли следующая страница
+        Limit fetch = Limit.of(size + 1);
+        List<HistoryItem> items;
+        if (cursor == null || cursor.isEmpty()) {
+            items = historyRepository.findFirstPage(userId, fetch);
+        } else {
+            CursorKey key = decodeCursor(cursor);
+            items = historyRepository.findPageAfter(userId, key.dateTime(), key.id(), fetch);
+        }
+        if (items.size() <= size) {
+            return new HistoryPage(items, null);
+        }
+        List<HistoryItem> page = items.subList(0, size);
+        return new HistoryPage(List.copyOf(page), encodeCursor(page.get(size - 1)));
+    }
+
+    public Optional<HistoryReport> report(Long userId, Long id) {
+        return storedReport(userId, id).map(entry -> new HistoryReport(entry.id(), entry.documentName(), entry.dateTime(),
+                entry.contentHash(), entry.findingsCount(), FindingsCodec.decode(decompress(entry.report()))));
+    }
+
+    // Находки в формате FindingsCodec как есть, без разбора
+    public Optional<byte[]> encodedReport(Long userId, Long id) {
+        return storedReport(userId, id).map(entry -> decompress(entry.report()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Записи до появления отчётов и с отчётом сверх лимита считаются отсутствующими
+    private Optional<HistoryEntry> storedReport(Long userId, Long id) {
+        return historyRepository.findEntry(userId, id).filter(entry -> entry.report() != null);
+    }
+
+    private static byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Отчёт в истории повреждён");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Отчёт в истории повреждён", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static String encodeCursor(HistoryItem last) {
+        String key = last.dateTime() + "|" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static CursorKey decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf('|');
+            return new CursorKey(LocalDateTime.parse(key.substring(0, separator)), Long.parseLong(key.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Неверный cursor", e);
+        }
+    }
+}
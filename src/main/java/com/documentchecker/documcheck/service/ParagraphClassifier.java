@@ -0,0 +1,81 @@
+package com.documentchecker.documcheck.service;
+
+import java.util.regex.Pattern;
+
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+
+import com.documentchecker.documcheck.service.docx.DocxParagraph;
+import com.documentchecker.documcheck.service.docx.DocxRun;
+
+/**
+ * Определяет роль абзаца тела один раз, когда он приходит от читателя; проверка и вёрстка
+ * дальше смотрят только на роль. Регулярные выражения скомпилированы заранее и дают
+ * тот же результат, что и прежние String.matches.
+ */
+final class ParagraphClassifier {
+
+    // Абзацы с позицией меньше этой считаются титульным листом
+    private static final int TITLE_PAGE_ELEMENTS = 20;
+    private static final int MAX_HEADING_LENGTH = 40;
+
+    private static final Pattern HEADING_STYLE = Pattern.compile("Heading[1-6]");
+    private static final Pattern DOT_LEADER = Pattern.compile(".*\\.{3,}.*");
+    private static final Pattern ENDS_WITH_DIGIT = Pattern.compile(".*\\d$");
+    private static final Pattern HAS_DIGIT = Pattern.compile(".*\\d.*");
+
+    enum ParagraphRole {
+        // w:numPr - элемент списка Word
+        NUMBERED,
+        // стиль Heading1..Heading6
+        STYLED_HEADING,
+        TITLE_PAGE,
+        // маркер "-" или "*" либо строка оглавления с отточием и номером страницы
+        LIST_ITEM,
+        HEADING,
+        BODY,
+        TABLE_CELL
+    }
+
+    private ParagraphClassifier() {
+    }
+
+    static ParagraphRole classify(DocxParagraph p) {
+        if (p.numId() != null) {
+            return ParagraphRole.NUMBERED;
+        }
+        String style = p.styleId();
+        if (style != null && HEADING_STYLE.matcher(style).matches()) {
+            return ParagraphRole.STYLED_HEADING;
+        }
+        if (p.bodyPosition() < TITLE_PAGE_ELEMENTS) {
+            return ParagraphRole.TITLE_PAGE;
+        }
+        String text = p.text().trim();
+        if (isListItem(text)) {
+            return ParagraphRole.LIST_ITEM;
+        }
+        return isHeading(p, text) ? ParagraphRole.HEADING : ParagraphRole.BODY;
+    }
+
+    private static boolean isListItem(String text) {
+        return text.startsWith("-") || text.startsWith("*")
+                || (text.contains("...") && DOT_LEADER.matcher(text).matches() && ENDS_WITH_DIGIT.matcher(text).matches());
+    }
+
+    private static boolean isHeading(DocxParagraph p, String text) {
+        if (text.isEmpty() || text.length() > MAX_HEADING_LENGTH) {
+            return false;
+        }
+        boolean isAllBold = true;
+        for (DocxRun run : p.runs()) {
+            if (!run.bold()) {
+                isAllBold = false;
+                break;
+            }
+        }
+        if (isAllBold && !text.endsWith(".") && p.alignment() == ParagraphAlignment.CENTER) {
+            return true;
+        }
+        return text.equals(text.toUpperCase()) || text.length() > 5 || !HAS_DIGIT.matcher(text).matches();
+    }
+}
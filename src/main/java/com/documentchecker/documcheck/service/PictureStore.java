@@ -0,0 +1,56 @@
+package com.documentchecker.documcheck.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Картинки из проверенных документов, адресуемые SHA-256 от их байтов.
+ * Ограничен по суммарному размеру, при переполнении вытесняются давно не запрошенные.
+ */
+@Service
+public class PictureStore {
+
+    public record StoredPicture(String hash, byte[] data, String mimeType) {
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, StoredPicture> pictures = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    public PictureStore(@Value("${documcheck.pictures.max-bytes:67108864}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public String put(byte[] data, String mimeType) {
+        String hash = ContentHash.sha256(data);
+        synchronized (this) {
+            if (pictures.get(hash) == null && data.length <= maxBytes) {
+                pictures.put(hash, new StoredPicture(hash, data, mimeType));
+                totalBytes += data.length;
+                evict();
+            }
+        }
+        return hash;
+    }
+
+    public synchronized Optional<StoredPicture> get(String hash) {
+        return Optional.ofNullable(pictures.get(hash));
+    }
+
+    public synchronized boolean contains(String hash) {
+        return pictures.containsKey(hash);
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, StoredPicture>> it = pictures.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            totalBytes -= it.next().getValue().data().length;
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.documentchecker.documcheck.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+/**
+ * То же, что StyleApplier.applyGostStyles, но без XWPFDocument: word/document.xml переписывается
+ * потоком событий StAX, а все остальные записи архива (картинки, шрифты, колонтитулы) копируются
+ * в сжатом виде как есть, без распаковки и повторного сжатия.
+ *
+ * Меняются те же элементы, что и в StyleApplier: абзацы верхнего уровня тела, их прогоны
+ * (в том числе внутри гиперссылок, полей и правок) и поля последнего раздела. Новые свойства
+ * вставляются в порядке схемы, существующие дополняются атрибутами, остальное не трогается.
+ */
+public final class StreamingStyleApplier {
+
+    private static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final String DOCUMENT_PART = "word/document.xml";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Контейнеры внутри абзаца, прогоны которых XWPFParagraph.getRuns тоже возвращает
+    private static final Set<String> RUN_CONTAINERS = Set.of("hyperlink", "fldSimple", "ins", "del", "moveFrom", "moveTo", "smartTag");
+
+    // Порядок дочерних элементов CT_PPr, CT_RPr и CT_SectPr по схеме WordprocessingML
+    private static final List<String> PARAGRAPH_PROPERTIES_ORDER = List.of("pStyle", "keepNext", "keepLines",
+            "pageBreakBefore", "framePr", "widowControl", "numPr", "suppressLineNumbers", "pBdr", "shd", "tabs",
+            "suppressAutoHyphens", "kinsoku", "wordWrap", "overflowPunct", "topLinePunct", "autoSpaceDE", "autoSpaceDN",
+            "bidi", "adjustRightInd", "snapToGrid", "spacing", "ind", "contextualSpacing", "mirrorIndents",
+            "suppressOverlap", "jc", "textDirection", "textAlignment", "textboxTightWrap", "outlineLvl", "divId",
+            "cnfStyle", "rPr", "sectPr", "pPrChange");
+    private static final List<String> RUN_PROPERTIES_ORDER = List.of("rStyle", "rFonts", "b", "bCs", "i", "iCs",
+            "caps", "smallCaps", "strike", "dstrike", "outline", "shadow", "emboss", "imprint", "noProof", "snapToGrid",
+            "vanish", "webHidden", "color", "spacing", "w", "kern", "position", "sz", "szCs", "highlight", "u", "effect",
+            "bdr", "shd", "fitText", "vertAlign", "rtl", "cs", "em", "lang", "eastAsianLayout", "specVanish", "oMath",
+            "rPrChange");
+    private static final List<String> SECTION_PROPERTIES_ORDER = List.of("headerReference", "footerReference",
+            "footnotePr", "endnotePr", "type", "pgSz", "pgMar", "paperSrc", "pgBorders", "lnNumType", "pgNumType",
+            "cols", "formProt", "vAlign", "noEndnote", "titlePg", "textDirection", "bidi", "rtlGutter", "docGrid",
+            "printerSettings", "sectPrChange");
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static final XMLEventFactory EVENTS = XMLEventFactory.newInstance();
+
+    private StreamingStyleApplier() {
+    }
+
+    public static void applyGostStyles(Path docx, int fontSize, OutputStream out) throws IOException, XMLStreamException {
+        try (ZipFile zip = new ZipFile(docx.toFile())) {
+            ZipArchiveOutputStream zipOut = new ZipArchiveOutputStream(out);
+            Enumeration<ZipArchiveEntry> entries = zip.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry entry = entries.nextElement();
+                if (DOCUMENT_PART.equals(entry.getName())) {
+                    ZipArchiveEntry rewritten = new ZipArchiveEntry(DOCUMENT_PART);
+                    rewritten.setMethod(ZipArchiveEntry.DEFLATED);
+                    rewritten.setTime(entry.getTime());
+                    zipOut.putArchiveEntry(rewritten);
+                    try (InputStream in = new BufferedInputStream(zip.getInputStream(entry), BUFFER_SIZE)) {
+                        OutputStream buffered = new BufferedOutputStream(zipOut, BUFFER_SIZE);
+                        rewriteDocument(in, buffered, fontSize);
+                        buffered.flush();
+                    }
+                    zipOut.closeArchiveEntry();
+                } else {
+                    try (InputStream raw = zip.getRawInputStream(entry)) {
+                        zipOut.addRawArchiveEntry(entry, raw);
+                    }
+                }
+            }
+            zipOut.finish();
+            zipOut.flush();
+        }
+    }
+
+    static void rewriteDocument(InputStream in, OutputStream out, int fontSize) throws XMLStreamException {
+        XMLEventReader reader = INPUT_FACTORY.createXMLEventReader(in);
+        XMLEventWriter writer = OUTPUT_FACTORY.createXMLEventWriter(out, "UTF-8");
+        try {
+            new Rewriter(reader, writer, fontSize).run();
+            writer.flush();
+        } finally {
+            reader.close();
+            writer.close();
+        }
+    }
+
+    // Элемент свойств, прочитанный целиком: только такие маленькие поддеревья держатся в памяти
+    private static final class Node {
+        StartElement start;
+        final List<Object> children = new ArrayList<>();
+
+        Node(StartElement start) {
+            this.start = start;
+        }
+
+        String name() {
+            return start.getName().getLocalPart();
+        }
+
+        boolean isW() {
+            return W_NS.equals(start.getName().getNamespaceURI());
+        }
+    }
+
+    private static final class Rewriter {
+        private final XMLEventReader reader;
+        private final XMLEventWriter writer;
+        private final Map<String, String> runFonts;
+        private final Map<String, String> runSize;
+        // Для каждого открытого элемента: лежит ли он на пути, по которому прогоны ещё берутся из абзаца
+        private final Deque<Boolean> runContext = new ArrayDeque<>();
+        private int depth;
+        private int bodyDepth = -1;
+        private boolean bodySectionSeen;
+
+        Rewriter(XMLEventReader reader, XMLEventWriter writer, int fontSize) {
+            this.reader = reader;
+            this.writer = writer;
+            this.runFonts = Map.of("ascii", StyleApplier.GOST_FONT, "hAnsi", StyleApplier.GOST_FONT,
+                    "cs", StyleApplier.GOST_FONT, "eastAsia", StyleApplier.GOST_FONT);
+            this.runSize = Map.of("val", String.valueOf(fontSize * 2));
+        }
+
+        void run() throws XMLStreamException {
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    startElement(event.asStartElement());
+                } else if (event.isEndElement()) {
+                    if (depth - 1 == bodyDepth && isW(event.asEndElement().getName(), "body") && !bodySectionSeen) {
+                        Node section = new Node(startOf("sectPr", event.asEndElement().getName().getPrefix()));
+                        writeNode(applySection(section));
+                    }
+                    depth--;
+                    runContext.pop();
+                    writer.add(event);
+                } else {
+                    writer.add(event);
+                }
+            }
+        }
+
+        private void startElement(StartElement start) throws XMLStreamException {
+            QName name = start.getName();
+            boolean parentContext = !runContext.isEmpty() && runContext.peek();
+            if (bodyDepth == -1 && isW(name, "body")) {
+                bodyDepth = depth;
+            }
+            if (depth == bodyDepth + 1 && bodyDepth != -1 && isW(name, "sectPr")) {
+                bodySectionSeen = true;
+                writeNode(applySection(readNode(start)));
+                return;
+            }
+            depth++;
+            writer.add(start);
+            if (depth == bodyDepth + 2 && isW(name, "p")) {
+                runContext.push(true);
+                writeProperties(name.getPrefix(), "pPr", this::applyParagraph);
+            } else if (parentContext && isW(name, "r")) {
+                runContext.push(false);
+                writeProperties(name.getPrefix(), "rPr", this::applyRun);
+            } else {
+                runContext.push(parentContext && W_NS.equals(name.getNamespaceURI()) && RUN_CONTAINERS.contains(name.getLocalPart()));
+            }
+        }
+
+        // Свойства стоят первым дочерним элементом; если их нет - создаются пустыми
+        private void writeProperties(String prefix, String localName, PropertiesTransform transform) throws XMLStreamException {
+            while (reader.peek() != null && reader.peek().isCharacters() && reader.peek().asCharacters().isWhiteSpace()) {
+                writer.add(reader.nextEvent());
+            }
+            XMLEvent next = reader.peek();
+            Node properties;
+            if (next != null && next.isStartElement() && isW(next.asStartElement().getName(), localName)) {
+                properties = readNode(reader.nextEvent().asStartElement());
+            } else {
+                properties = new Node(startOf(localName, prefix));
+            }
+            writeNode(transform.apply(properties));
+        }
+
+        private Node applyParagraph(Node pPr) {
+            setAttributes(pPr, "jc", Map.of("val", "both"), PARAGRAPH_PROPERTIES_ORDER);
+            setAttributes(pPr, "spacing", Map.of("line", String.valueOf(StyleApplier.GOST_LINE_SPACING), "lineRule", "auto"),
+                    PARAGRAPH_PROPERTIES_ORDER);
+            setAttributes(pPr, "ind", Map.of("firstLine", String.valueOf(StyleApplier.GOST_FIRST_LINE_TWIPS)),
+                    PARAGRAPH_PROPERTIES_ORDER);
+            return pPr;
+        }
+
+        private Node applyRun(Node rPr) {
+            setAttributes(rPr, "rFonts", runFonts, RUN_PROPERTIES_ORDER);
+            setAttributes(rPr, "sz", runSize, RUN_PROPERTIES_ORDER);
+            setAttributes(rPr, "color", Map.of("val", "000000"), RUN_PROPERTIES_ORDER);
+            setAttributes(rPr, "i", Map.of("val", "false"), RUN_PROPERTIES_ORDER);
+            setAttributes(rPr, "b", Map.of("val", "false"), RUN_PROPERTIES_ORDER);
+            return rPr;
+        }
+
+        private Node applySection(Node sectPr) {
+            Map<String, String> margins = new LinkedHashMap<>();
+            margins.put("left", String.valueOf(StyleApplier.GOST_MARGIN_LEFT));
+            margins.put("right", String.valueOf(StyleApplier.GOST_MARGIN_RIGHT));
+            margins.put("top", String.valueOf(StyleApplier.GOST_MARGIN_TOP));
+            margins.put("bottom", String.valueOf(StyleApplier.GOST_MARGIN_BOTTOM));
+            setAttributes(sectPr, "pgMar", margins, SECTION_PROPERTIES_ORDER);
+            return sectPr;
+        }
+
+        // Дополняет первый дочерний элемент localName атрибутами w:*, а если его нет - вставляет по порядку схемы
+        private void setAttributes(Node parent, String localName, Map<String, String> values, List<String> order) {
+            for (int i = 0; i < parent.children.size(); i++) {
+                if (parent.children.get(i) instanceof Node child && child.isW() && localName.equals(child.name())) {
+                    child.start = withAttributes(child.start, values);
+                    return;
+                }
+            }
+            Node created = new Node(withAttributes(startOf(localName, parent.start.getName().getPrefix()), values));
+            int rank = order.indexOf(localName);
+            for (int i = 0; i < parent.children.size(); i++) {
+                if (parent.children.get(i) instanceof Node child && child.isW() && order.indexOf(child.name()) > rank) {
+                    parent.children.add(i, created);
+                    return;
+                }
+            }
+            parent.children.add(created);
+        }
+
+        private Node readNode(StartElement start) throws XMLStreamException {
+            Node node = new Node(start);
+            while (true) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isEndElement()) {
+                    return node;
+                }
+                if (event.isStartElement()) {
+                    node.children.add(readNode(event.asStartElement()));
+                } else if (!(event.isCharacters() && event.asCharacters().isWhiteSpace())) {
+                    node.children.add(event);
+                }
+            }
+        }
+
+        private void writeNode(Node node) throws XMLStreamException {
+            writer.add(node.start);
+            for (Object child : node.children) {
+                if (child instanceof Node element) {
+                    writeNode(element);
+                } else {
+                    writer.add((XMLEvent) child);
+                }
+            }
+            QName name = node.start.getName();
+            writer.add(EVENTS.createEndElement(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart()));
+        }
+    }
+
+    @FunctionalInterface
+    private interface PropertiesTransform {
+        Node apply(Node properties);
+    }
+
+    private static StartElement startOf(String localName, String prefix) {
+        return EVENTS.createStartElement(prefix, W_NS, localName);
+    }
+
+    private static StartElement withAttributes(StartElement start, Map<String, String> values) {
+        List<Attribute> attributes = new ArrayList<>();
+        Iterator<Attribute> existing = start.getAttributes();
+        while (existing.hasNext()) {
+            Attribute attribute = existing.next();
+            QName name = attribute.getName();
+            if (!(W_NS.equals(name.getNamespaceURI()) && values.containsKey(name.getLocalPart()))) {
+                attributes.add(attribute);
+            }
+        }
+        String prefix = start.getName().getPrefix();
+        values.forEach((name, value) -> attributes.add(EVENTS.createAttribute(prefix, W_NS, name, value)));
+        QName name = start.getName();
+        return EVENTS.createStartElement(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(),
+                attributes.iterator(), start.getNamespaces());
+    }
+
+    private static boolean isW(QName name, String localName) {
+        return localName.equals(name.getLocalPart()) && W_NS.equals(name.getNamespaceURI());
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -6,6 +6,14 @@ import java.math.BigInteger;
 
 public class StyleApplier {
 
+    static final String GOST_FONT = "Times New Roman";
+    static final long GOST_LINE_SPACING = 360L;
+    static final int GOST_FIRST_LINE_TWIPS = 709;
+    static final int GOST_MARGIN_LEFT = 1701;
+    static final int GOST_MARGIN_RIGHT = 850;
+    static final int GOST_MARGIN_TOP = 1134;
+    static final int GOST_MARGIN_BOTTOM = 1134;
+
     public static void applyGostStyles(XWPFDocument document, int fontSize) {
         if (document == null) return;
 
@@ -18,13 +26,13 @@ public class StyleApplier {
     private static void applyParagraphStyles(XWPFParagraph paragraph, int fontSize) {
         paragraph.setAlignment(ParagraphAlignment.BOTH);
         
-        setLineSpacing(paragraph, 360L); 
+        setLineSpacing(paragraph, GOST_LINE_SPACING);
 
-        paragraph.setIndentationFirstLine(709);
+        paragraph.setIndentationFirstLine(GOST_FIRST_LINE_TWIPS);
 
         
         for (XWPFRun run : paragraph.getRuns()) {
-            run.setFontFamily("Times New Roman");
+            run.setFontFamily(GOST_FONT);
             run.setFontSize(fontSize);
             run.setColor("000000"); 
             run.setItalic(false);
@@ -46,9 +54,9 @@ public class StyleApplier {
                           
         CTPageMar pageMar = sectPr.isSetPgMar() ? sectPr.getPgMar() : sectPr.addNewPgMar();
 
-        pageMar.setLeft(BigInteger.valueOf(1701));  
-        pageMar.setRight(BigInteger.valueOf(850));   
-        pageMar.setTop(BigInteger.valueOf(1134));    
-        pageMar.setBottom(BigInteger.valueOf(1134)); 
+        pageMar.setLeft(BigInteger.valueOf(GOST_MARGIN_LEFT));
+        pageMar.setRight(BigInteger.valueOf(GOST_MARGIN_RIGHT));
+        pageMar.setTop(BigInteger.valueOf(GOST_MARGIN_TOP));
+        pageMar.setBottom(BigInteger.valueOf(GOST_MARGIN_BOTTOM));
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.documentchecker.documcheck.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.documentchecker.documcheck.service.DocumentStore.StoredDocument;
+import com.documentchecker.documcheck.service.docx.DocxEngine;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Готовые файлы "Скачать с ГОСТ" на диске. Ключ - содержимое документа, кегль и движок,
+ * поэтому повторное нажатие кнопки отдаётся файлом без повторной обработки, а ключ служит ETag.
+ * При превышении бюджета удаляются самые давно использованные файлы. Файл, выданный styled(),
+ * удерживается до release(): вытесненный в это время файл удаляется, когда его отпустят.
+ */
+@Service
+public class StyledDownloadService {
+
+    public record StyledDocument(String key, Path path, long size) {
+    }
+
+    private static class Entry {
+        final StyledDocument document;
+        volatile long lastAccess = System.currentTimeMillis();
+        // сколько ответов сейчас отдают файл
+        private int holds;
+        private boolean evicted;
+
+        Entry(StyledDocument document) {
+            this.document = document;
+        }
+
+        synchronized boolean hold() {
+            if (evicted || !Files.exists(document.path())) {
+                return false;
+            }
+            holds++;
+            lastAccess = System.currentTimeMillis();
+            return true;
+        }
+
+        // true - файл больше никому не нужен и его можно удалить
+        synchronized boolean release() {
+            holds--;
+            return evicted && holds == 0;
+        }
+
+        synchronized boolean evict() {
+            evicted = true;
+            return holds == 0;
+        }
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Map<String, Entry> documents = new ConcurrentHashMap<>();
+    // все файлы каталога: из documents и вытесненные, но ещё удерживаемые
+    private final Map<Path, Entry> files = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    // sha256 загруженного файла по id в DocumentStore: файл там не меняется, считать его второй раз незачем
+    private final Cache<String, String> hashes = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    public StyledDownloadService(@Value("${documcheck.styled-cache.dir:${java.io.tmpdir}/documcheck-styled}") Path directory,
+            @Value("${documcheck.styled-cache.max-bytes:536870912}") long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        // индекс живёт только в памяти: файлы прошлого запуска ничьи
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(this.directory, "*.{docx,tmp}")) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    // Файл удерживается до release, даже если его тем временем вытеснят
+    public StyledDocument styled(StoredDocument source, int fontSize, DocxEngine engine) throws Exception {
+        String hash = hashes.get(source.id(), id -> {
+            try {
+                return ContentHash.sha256(source.source());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        String key = hash + "-" + fontSize + "-" + engine.name().toLowerCase(Locale.ROOT);
+        Entry entry = documents.get(key);
+        if (entry != null && entry.hold()) {
+            return entry.document;
+        }
+
+        // у каждой записи свой файл: удаление вытесненной не заденет новую с тем же ключом
+        Path path = Files.createTempFile(directory, key + "-", ".docx");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            write(source, fontSize, engine, out);
+        } catch (Exception e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        return register(new StyledDocument(key, path, Files.size(path)));
+    }
+
+    public void release(StyledDocument document) {
+        Entry entry = files.get(document.path());
+        if (entry != null && entry.release()) {
+            delete(entry);
+        }
+    }
+
+    @PreDestroy
+    public void clear() {
+        documents.keySet().stream().toList().forEach(this::remove);
+    }
+
+    private static void write(StoredDocument source, int fontSize, DocxEngine engine, OutputStream out) throws Exception {
+        if (engine == DocxEngine.STAX) {
+            // переписывается только document.xml, остальные части копируются без пересжатия
+            StreamingStyleApplier.applyGostStyles(source.path(), fontSize, out);
+            return;
+        }
+        try (XWPFDocument document = new XWPFDocument(source.source().getInputStream())) {
+            StyleApplier.applyGostStyles(document, fontSize);
+            document.write(out);
+        }
+    }
+
+    private StyledDocument register(StyledDocument document) {
+        Entry entry = new Entry(document);
+        entry.hold();
+        files.put(document.path(), entry);
+        Entry previous = documents.put(document.key(), entry);
+        totalBytes.addAndGet(document.size());
+        if (previous != null) {
+            evict(previous);
+        }
+        if (totalBytes.get() > maxBytes) {
+            evictLeastRecentlyUsed(document.key());
+        }
+        return document;
+    }
+
+    private synchronized void evictLeastRecentlyUsed(String keepKey) {
+        var candidates = documents.values().stream()
+                .filter(entry -> !entry.document.key().equals(keepKey))
+                .sorted(Comparator.comparingLong(entry -> entry.lastAccess))
+                .toList();
+        for (Entry entry : candidates) {
+            if (totalBytes.get() <= maxBytes) {
+                break;
+            }
+            // ключ мог уже получить новую запись - трогаем только ту, что сортировали
+            if (documents.remove(entry.document.key(), entry)) {
+                evict(entry);
+            }
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = documents.remove(key);
+        if (entry != null) {
+            evict(entry);
+        }
+    }
+
+    private void evict(Entry entry) {
+        totalBytes.addAndGet(-entry.document.size());
+        if (entry.evict()) {
+            delete(entry);
+        }
+    }
+
+    private void delete(Entry entry) {
+        files.remove(entry.document.path());
+        try {
+            Files.deleteIfExists(entry.document.path());
+        } catch (IOException e) {
+            System.out.println("Не удалось удалить " + entry.document.path() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.documentchecker.documcheck.service;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.documentchecker.documcheck.service.docx.DocxParagraph;
+import com.documentchecker.documcheck.service.docx.DocxRun;
+
+/**
+ * Оценка высоты абзаца по метрикам шрифтов AWT. Для каждого начертания один раз строится
+ * таблица ширин символов (латиница и кириллица) при кегле 1pt - ширины растут линейно, так что
+ * одна таблица служит всем размерам. Дальше строки разбиваются по словам в пределах ширины
+ * полосы набора, как это делает Word. Если шрифта нет в системе, AWT подставляет Dialog.
+ */
+@Component
+public class TextMeasurer {
+
+    private static final String DEFAULT_FONT = "Times New Roman";
+    private static final int DEFAULT_FONT_SIZE = 14;
+    private static final int TABLE_SIZE = 0x500;
+    private static final float BASE_SIZE = 100f;
+    private static final double TAB_WIDTH_PT = 36.0;
+    private static final int MAX_TABLES = 256;
+    private static final FontRenderContext FRC = new FontRenderContext(null, true, true);
+
+    private record FontKey(String family, boolean bold, boolean italic) {
+    }
+
+    // Ширины и высота строки шрифта кеглем 1pt
+    private record GlyphTable(float[] advances, float fallbackAdvance, float lineHeight) {
+
+        float advance(char c) {
+            return c < TABLE_SIZE ? advances[c] : fallbackAdvance;
+        }
+    }
+
+    private final Map<FontKey, GlyphTable> tables = new ConcurrentHashMap<>();
+
+    // Высота текста абзаца в пунктах без интервалов до и после; 0, если в прогонах нет текста
+    public double paragraphHeight(DocxParagraph paragraph, double widthPt) {
+        int firstLine = paragraph.firstLineIndent() != -1 ? paragraph.firstLineIndent() : paragraph.styleFirstLineIndent();
+        LineBreaker lines = new LineBreaker(widthPt, Math.max(firstLine, 0) / 20.0);
+        for (DocxRun run : paragraph.runs()) {
+            String text = run.text();
+            if (text == null || text.isEmpty()) continue;
+            GlyphTable table = table(run.fontFamily() != null ? run.fontFamily() : DEFAULT_FONT, run.bold(), run.italic());
+            double size = run.fontSize() > 0 ? run.fontSize() : DEFAULT_FONT_SIZE;
+            double lineHeight = table.lineHeight() * size;
+            double spaceWidth = table.advance(' ') * size;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\n') {
+                    lines.lineBreak(lineHeight);
+                } else if (c == ' ') {
+                    lines.space(spaceWidth, lineHeight);
+                } else if (c == '\t') {
+                    lines.space(TAB_WIDTH_PT, lineHeight);
+                } else {
+                    lines.glyph(table.advance(c) * size, lineHeight);
+                }
+            }
+        }
+        double spacing = paragraph.spacingBetween() > 0 ? paragraph.spacingBetween() : 1.0;
+        return lines.finish() * spacing;
+    }
+
+    private GlyphTable table(String family, boolean bold, boolean italic) {
+        FontKey key = new FontKey(family, bold, italic);
+        GlyphTable table = tables.get(key);
+        if (table != null) {
+            return table;
+        }
+        if (tables.size() >= MAX_TABLES) {
+            tables.clear();
+        }
+        return tables.computeIfAbsent(key, TextMeasurer::buildTable);
+    }
+
+    private static GlyphTable buildTable(FontKey key) {
+        int style = (key.bold() ? Font.BOLD : Font.PLAIN) | (key.italic() ? Font.ITALIC : Font.PLAIN);
+        Font font = new Font(key.family(), style, 1).deriveFont(BASE_SIZE);
+        float[] advances = new float[TABLE_SIZE];
+        char[] glyph = new char[1];
+        for (char c = ' '; c < TABLE_SIZE; c++) {
+            if (Character.isISOControl(c)) continue;
+            glyph[0] = c;
+            advances[c] = (float) font.getStringBounds(glyph, 0, 1, FRC).getWidth() / BASE_SIZE;
+        }
+        float lineHeight = font.getLineMetrics("Ж", FRC).getHeight() / BASE_SIZE;
+        return new GlyphTable(advances, advances['0'], lineHeight);
+    }
+
+    // Жадный перенос по словам: слово, не помещающееся в строку, уходит на следующую целиком
+    private static final class LineBreaker {
+        private final double width;
+        private double lineWidth;
+        private double lineHeight;
+        private double wordWidth;
+        private double wordHeight;
+        private double height;
+        private boolean empty = true;
+
+        LineBreaker(double width, double firstLineIndent) {
+            this.width = width;
+            this.lineWidth = firstLineIndent;
+        }
+
+        void glyph(double advance, double glyphLineHeight) {
+            wordWidth += advance;
+            wordHeight = Math.max(wordHeight, glyphLineHeight);
+            empty = false;
+        }
+
+        void space(double advance, double spaceLineHeight) {
+            flushWord();
+            lineWidth += advance;
+            lineHeight = Math.max(lineHeight, spaceLineHeight);
+        }
+
+        void lineBreak(double breakLineHeight) {
+            flushWord();
+            height += Math.max(lineHeight, breakLineHeight);
+            lineWidth = 0;
+            lineHeight = 0;
+            empty = false;
+        }
+
+        double finish() {
+            flushWord();
+            if (empty) {
+                return 0;
+            }
+            return height + lineHeight;
+        }
+
+        private void flushWord() {
+            if (wordWidth == 0) return;
+            if (lineWidth + wordWidth > width && lineWidth > 0) {
+                height += lineHeight;
+                lineWidth = 0;
+                lineHeight = 0;
+            }
+            // слово длиннее строки переносится по символам
+            while (wordWidth > width) {
+                height += Math.max(lineHeight, wordHeight);
+                wordWidth -= width;
+                lineHeight = 0;
+            }
+            lineWidth += wordWidth;
+            lineHeight = Math.max(lineHeight, wordHeight);
+            wordWidth = 0;
+            wordHeight = 0;
+        }
+    }
+}
@@ -1,19 +1,62 @@
 package com.documentchecker.documcheck.service;
 
+import com.documentchecker.documcheck.model.User;
 import com.documentchecker.documcheck.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
-@RequiredArgsConstructor
-public class UserService {
+public class UserService implements UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    // Пользователи для запросов с JWT. Вход по паролю идёт мимо кэша, в базу
+    private final Cache<String, UserDetails> cachedUsers;
+
+    public UserService(UserRepository userRepository,
+            @Value("${jwt.user-cache.ttl:30s}") Duration ttl,
+            @Value("${jwt.user-cache.max-size:10000}") long maxSize,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.cachedUsers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cachedUsers, "documcheck.users");
+    }
 
     public UserDetailsService userDetailsService() {
         return username -> userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
-}
\ No newline at end of file
+
+    // Пересчёт хэша при входе, если сила BCrypt в базе ниже текущей (см. SecurityConfig)
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User updated = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        updated.setPassword(newPassword);
+        userRepository.save(updated);
+        evict(updated.getUsername());
+        return updated;
+    }
+
+    public UserDetails cachedUserDetails(String username) {
+        return cachedUsers.get(username, userDetailsService()::loadUserByUsername);
+    }
+
+    // Вызывать после любого изменения пользователя (пароль, роль), чтобы запросы не видели старые данные до конца TTL
+    public void evict(String username) {
+        cachedUsers.invalidate(username);
+    }
+}
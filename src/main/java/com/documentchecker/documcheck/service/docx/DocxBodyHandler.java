@@ -0,0 +1,26 @@
+package com.documentchecker.documcheck.service.docx;
+
+import java.util.List;
+
+public interface DocxBodyHandler {
+
+    // Архив открыт и служебные части прочитаны, дальше колонтитулы и тело
+    default void opened() {
+    }
+
+    // Перед startBody или, если читатель узнаёт её только из w:sectPr в конце тела, после последнего
+    // элемента; вызывается всегда, без w:sectPr - DocxPageLayout.DEFAULT
+    default void pageLayout(DocxPageLayout layout) {
+    }
+
+    // Вызывается перед startBody; без numbering.xml - DocxNumbering.EMPTY
+    default void numbering(DocxNumbering numbering) {
+    }
+
+    // null, если в документе нет колонтитула
+    void startBody(List<String> headerLines, List<String> footerLines);
+
+    void paragraph(DocxParagraph paragraph);
+
+    void table(DocxTable table);
+}
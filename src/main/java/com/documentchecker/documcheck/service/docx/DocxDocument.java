@@ -0,0 +1,147 @@
+package com.documentchecker.documcheck.service.docx;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.core.io.InputStreamSource;
+
+/**
+ * Разобранный документ: всё, что читатель передал обработчику, в порядке следования.
+ * Собирается один раз при первой проверке, а при смене параметров воспроизводится как
+ * DocxReader без повторного открытия архива - проверки и вёрстка идут по готовым значениям.
+ */
+public class DocxDocument implements DocxBodyHandler, DocxReader {
+
+    private static final int PARAGRAPH_OVERHEAD_BYTES = 160;
+    private static final int RUN_OVERHEAD_BYTES = 96;
+
+    private DocxPageLayout pageLayout = DocxPageLayout.DEFAULT;
+    private DocxNumbering numbering = DocxNumbering.EMPTY;
+    private List<String> headerLines;
+    private List<String> footerLines;
+    private final List<Object> elements = new ArrayList<>();
+    private long estimatedBytes;
+
+    // Обработчик, который запоминает события в этот документ и передаёт их дальше
+    public DocxBodyHandler recording(DocxBodyHandler downstream) {
+        return new DocxBodyHandler() {
+            @Override
+            public void opened() {
+                downstream.opened();
+            }
+
+            @Override
+            public void pageLayout(DocxPageLayout layout) {
+                DocxDocument.this.pageLayout(layout);
+                downstream.pageLayout(layout);
+            }
+
+            @Override
+            public void numbering(DocxNumbering numbering) {
+                DocxDocument.this.numbering(numbering);
+                downstream.numbering(numbering);
+            }
+
+            @Override
+            public void startBody(List<String> headerLines, List<String> footerLines) {
+                DocxDocument.this.startBody(headerLines, footerLines);
+                downstream.startBody(headerLines, footerLines);
+            }
+
+            @Override
+            public void paragraph(DocxParagraph paragraph) {
+                DocxDocument.this.paragraph(paragraph);
+                downstream.paragraph(paragraph);
+            }
+
+            @Override
+            public void table(DocxTable table) {
+                DocxDocument.this.table(table);
+                downstream.table(table);
+            }
+        };
+    }
+
+    @Override
+    public void pageLayout(DocxPageLayout layout) {
+        this.pageLayout = layout;
+    }
+
+    @Override
+    public void numbering(DocxNumbering numbering) {
+        this.numbering = numbering;
+    }
+
+    @Override
+    public void startBody(List<String> headerLines, List<String> footerLines) {
+        this.headerLines = headerLines;
+        this.footerLines = footerLines;
+        estimatedBytes += linesBytes(headerLines) + linesBytes(footerLines);
+    }
+
+    @Override
+    public void paragraph(DocxParagraph paragraph) {
+        elements.add(paragraph);
+        estimatedBytes += paragraphBytes(paragraph);
+    }
+
+    @Override
+    public void table(DocxTable table) {
+        elements.add(table);
+        for (List<List<DocxParagraph>> row : table.rows()) {
+            for (List<DocxParagraph> cell : row) {
+                for (DocxParagraph paragraph : cell) {
+                    estimatedBytes += paragraphBytes(paragraph);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void read(InputStreamSource source, DocxBodyHandler handler) {
+        handler.opened();
+        handler.pageLayout(pageLayout);
+        handler.numbering(numbering);
+        handler.startBody(headerLines, footerLines);
+        for (Object element : elements) {
+            if (element instanceof DocxParagraph paragraph) {
+                handler.paragraph(paragraph);
+            } else {
+                handler.table((DocxTable) element);
+            }
+        }
+    }
+
+    public List<Object> elements() {
+        return elements;
+    }
+
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    private static long paragraphBytes(DocxParagraph paragraph) {
+        long bytes = PARAGRAPH_OVERHEAD_BYTES + textBytes(paragraph.text());
+        for (DocxRun run : paragraph.runs()) {
+            bytes += RUN_OVERHEAD_BYTES + textBytes(run.text());
+            for (DocxPicture picture : run.pictures()) {
+                bytes += picture.data().length;
+            }
+        }
+        return bytes;
+    }
+
+    private static long linesBytes(List<String> lines) {
+        long bytes = 0;
+        if (lines != null) {
+            for (String line : lines) {
+                bytes += textBytes(line);
+            }
+        }
+        return bytes;
+    }
+
+    private static long textBytes(String text) {
+        return text != null ? 40L + text.length() * 2L : 0;
+    }
+}
@@ -0,0 +1,13 @@
+package com.documentchecker.documcheck.service.docx;
+
+public enum DocxEngine {
+    POI,
+    STAX;
+
+    public DocxReader reader() {
+        return switch (this) {
+            case POI -> new PoiDocxReader();
+            case STAX -> new StaxDocxReader();
+        };
+    }
+}
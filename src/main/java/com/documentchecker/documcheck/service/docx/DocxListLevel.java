@@ -0,0 +1,5 @@
+package com.documentchecker.documcheck.service.docx;
+
+// Уровень списка: w:numFmt (decimal, bullet, lowerLetter...) и начальный номер с учётом w:startOverride
+public record DocxListLevel(String numFmt, int start) {
+}
@@ -0,0 +1,31 @@
+package com.documentchecker.documcheck.service.docx;
+
+import java.util.Map;
+
+/**
+ * Нумерация документа, развёрнутая при загрузке: (numId, ilvl) → уровень списка.
+ * Неизменяема, поэтому её можно читать из параллельной вёрстки.
+ */
+public final class DocxNumbering {
+
+    public static final DocxNumbering EMPTY = new DocxNumbering(Map.of());
+
+    private final Map<Long, DocxListLevel> levels;
+
+    DocxNumbering(Map<Long, DocxListLevel> levels) {
+        this.levels = Map.copyOf(levels);
+    }
+
+    // null, если numId не описан в numbering.xml или у абстрактного списка нет такого уровня
+    public DocxListLevel level(int numId, int ilvl) {
+        return levels.get(key(numId, ilvl));
+    }
+
+    public int size() {
+        return levels.size();
+    }
+
+    static long key(int numId, int ilvl) {
+        return ((long) numId << 32) | (ilvl & 0xFFFFFFFFL);
+    }
+}
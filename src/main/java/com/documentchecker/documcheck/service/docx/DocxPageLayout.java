@@ -0,0 +1,24 @@
+package com.documentchecker.documcheck.service.docx;
+
+// Размер страницы и поля последнего раздела документа (w:sectPr тела), в twips
+public record DocxPageLayout(
+        int pageWidth,
+        int pageHeight,
+        int marginLeft,
+        int marginRight,
+        int marginTop,
+        int marginBottom) {
+
+    // A4 с полями по ГОСТ 7.32: левое 3 см, правое 1.5 см, верхнее и нижнее 2 см
+    public static final DocxPageLayout DEFAULT = new DocxPageLayout(11906, 16838, 1701, 850, 1134, 1134);
+
+    private static final int MIN_CONTENT_TWIPS = 1440;
+
+    public double contentWidthPt() {
+        return Math.max(pageWidth - marginLeft - marginRight, MIN_CONTENT_TWIPS) / 20.0;
+    }
+
+    public double contentHeightPt() {
+        return Math.max(pageHeight - Math.abs(marginTop) - Math.abs(marginBottom), MIN_CONTENT_TWIPS) / 20.0;
+    }
+}
@@ -0,0 +1,21 @@
+package com.documentchecker.documcheck.service.docx;
+
+import java.util.List;
+
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+
+public record DocxParagraph(
+        int bodyPosition,
+        String styleId,
+        ParagraphAlignment alignment,
+        int firstLineIndent,
+        int styleFirstLineIndent,
+        double spacingBetween,
+        int spacingBefore,
+        int spacingAfter,
+        Integer numId,
+        int numIlvl,
+        String numFmt,
+        String text,
+        List<DocxRun> runs) {
+}
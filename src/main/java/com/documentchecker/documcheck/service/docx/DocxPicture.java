@@ -0,0 +1,4 @@
+package com.documentchecker.documcheck.service.docx;
+
+public record DocxPicture(byte[] data, String extension) {
+}
@@ -0,0 +1,8 @@
+package com.documentchecker.documcheck.service.docx;
+
+import org.springframework.core.io.InputStreamSource;
+
+public interface DocxReader {
+
+    void read(InputStreamSource source, DocxBodyHandler handler) throws Exception;
+}
@@ -0,0 +1,13 @@
+package com.documentchecker.documcheck.service.docx;
+
+import java.util.List;
+
+public record DocxRun(
+        String text,
+        int fontSize,
+        String fontFamily,
+        boolean bold,
+        boolean italic,
+        boolean underline,
+        List<DocxPicture> pictures) {
+}
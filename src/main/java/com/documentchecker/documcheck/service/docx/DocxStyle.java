@@ -0,0 +1,28 @@
+package com.documentchecker.documcheck.service.docx;
+
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+
+// Свойства форматирования стиля или docDefaults; -1 и null - свойство не задано
+record DocxStyle(
+        int fontSize,
+        String fontFamily,
+        ParagraphAlignment alignment,
+        int firstLineIndent,
+        double spacingBetween,
+        int spacingBefore,
+        int spacingAfter) {
+
+    static final DocxStyle EMPTY = new DocxStyle(-1, null, null, -1, -1, -1, -1);
+
+    // Заданные здесь свойства перекрывают свойства base
+    DocxStyle over(DocxStyle base) {
+        return new DocxStyle(
+                fontSize != -1 ? fontSize : base.fontSize,
+                fontFamily != null ? fontFamily : base.fontFamily,
+                alignment != null ? alignment : base.alignment,
+                firstLineIndent != -1 ? firstLineIndent : base.firstLineIndent,
+                spacingBetween != -1 ? spacingBetween : base.spacingBetween,
+                spacingBefore != -1 ? spacingBefore : base.spacingBefore,
+                spacingAfter != -1 ? spacingAfter : base.spacingAfter);
+    }
+}
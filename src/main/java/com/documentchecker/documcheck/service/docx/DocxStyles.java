@@ -0,0 +1,71 @@
+package com.documentchecker.documcheck.service.docx;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Стили одного документа с развёрнутым наследованием docDefaults → basedOn → стиль.
+ * Цепочка каждого styleId разворачивается один раз за чтение, дальше свойства абзаца
+ * и прогона берутся из таблицы. Экземпляр не потокобезопасен: он живёт внутри одного чтения.
+ */
+final class DocxStyles {
+
+    private static final int MAX_DEPTH = 32;
+
+    record Definition(String basedOn, DocxStyle own) {
+    }
+
+    private final Map<String, Definition> definitions;
+    private final DocxStyle docDefaults;
+    private final String defaultParagraphStyle;
+    private final Map<String, DocxStyle> chains = new HashMap<>();
+    private final Map<String, DocxStyle> paragraphStyles = new HashMap<>();
+
+    DocxStyles(Map<String, Definition> definitions, DocxStyle docDefaults, String defaultParagraphStyle) {
+        this.definitions = definitions;
+        this.docDefaults = docDefaults;
+        this.defaultParagraphStyle = defaultParagraphStyle;
+    }
+
+    static DocxStyles empty() {
+        return new DocxStyles(Map.of(), DocxStyle.EMPTY, null);
+    }
+
+    // Абзац без w:pStyle получает стиль по умолчанию (обычно Normal)
+    DocxStyle paragraph(String styleId) {
+        String id = styleId != null ? styleId : defaultParagraphStyle;
+        if (id == null) {
+            return docDefaults;
+        }
+        DocxStyle resolved = paragraphStyles.get(id);
+        if (resolved == null) {
+            resolved = chain(id, 0).over(docDefaults);
+            paragraphStyles.put(id, resolved);
+        }
+        return resolved;
+    }
+
+    // Стиль знака прогона (w:rStyle) перекрывает стиль абзаца
+    DocxStyle run(String paragraphStyleId, String runStyleId) {
+        DocxStyle paragraph = paragraph(paragraphStyleId);
+        return runStyleId != null ? chain(runStyleId, 0).over(paragraph) : paragraph;
+    }
+
+    // Глубина ограничена на случай зацикленного basedOn
+    private DocxStyle chain(String styleId, int depth) {
+        DocxStyle cached = chains.get(styleId);
+        if (cached != null) {
+            return cached;
+        }
+        Definition definition = definitions.get(styleId);
+        if (definition == null) {
+            return DocxStyle.EMPTY;
+        }
+        DocxStyle resolved = definition.own();
+        if (definition.basedOn() != null && depth < MAX_DEPTH) {
+            resolved = resolved.over(chain(definition.basedOn(), depth + 1));
+        }
+        chains.put(styleId, resolved);
+        return resolved;
+    }
+}
@@ -0,0 +1,7 @@
+package com.documentchecker.documcheck.service.docx;
+
+import java.util.List;
+
+// строки -> ячейки -> абзацы ячейки
+public record DocxTable(List<List<List<DocxParagraph>>> rows) {
+}
@@ -0,0 +1,179 @@
+package com.documentchecker.documcheck.service.docx;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.poi.xwpf.usermodel.*;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.*;
+import org.springframework.core.io.InputStreamSource;
+
+public class PoiDocxReader implements DocxReader {
+
+    private DocxStyles styles = DocxStyles.empty();
+    private DocxNumbering numbering = DocxNumbering.EMPTY;
+
+    @Override
+    public void read(InputStreamSource source, DocxBodyHandler handler) throws Exception {
+        try (InputStream is = source.getInputStream(); XWPFDocument doc = new XWPFDocument(is)) {
+            styles = readStyles(doc);
+            numbering = readNumbering(doc);
+            handler.opened();
+            handler.pageLayout(pageLayout(doc));
+            handler.numbering(numbering);
+            handler.startBody(extractHeaders(doc), extractFooters(doc));
+
+            // позиция - индекс в getBodyElements, как у getPosOfParagraph, но без поиска по списку на каждый абзац
+            List<IBodyElement> bodyElements = doc.getBodyElements();
+            for (int position = 0; position < bodyElements.size(); position++) {
+                IBodyElement el = bodyElements.get(position);
+                if (el instanceof XWPFParagraph) {
+                    XWPFParagraph p = (XWPFParagraph) el;
+                    handler.paragraph(toParagraph(p, position));
+                } else if (el instanceof XWPFTable) {
+                    handler.table(toTable((XWPFTable) el));
+                }
+            }
+        }
+    }
+
+    private DocxTable toTable(XWPFTable table) {
+        List<List<List<DocxParagraph>>> rows = new ArrayList<>();
+        for (XWPFTableRow row : table.getRows()) {
+            List<List<DocxParagraph>> cells = new ArrayList<>();
+            for (XWPFTableCell cell : row.getTableCells()) {
+                List<DocxParagraph> paragraphs = new ArrayList<>();
+                for (XWPFParagraph paragraph : cell.getParagraphs()) {
+                    paragraphs.add(toParagraph(paragraph, -1));
+                }
+                cells.add(paragraphs);
+            }
+            rows.add(cells);
+        }
+        return new DocxTable(rows);
+    }
+
+    private DocxParagraph toParagraph(XWPFParagraph p, int bodyPosition) {
+        List<DocxRun> runs = new ArrayList<>();
+        for (XWPFRun r : p.getRuns()) {
+            runs.add(toRun(r, p.getStyle()));
+        }
+        BigInteger numId = p.getNumID();
+        BigInteger ilvl = p.getNumIlvl();
+        DocxListLevel level = numId != null ? numbering.level(numId.intValue(), ilvl != null ? ilvl.intValue() : 0) : null;
+        DocxStyle style = styles.paragraph(p.getStyle());
+        CTPPr ppr = p.getCTP().getPPr();
+        boolean directAlignment = ppr != null && ppr.isSetJc();
+        return new DocxParagraph(
+                bodyPosition,
+                p.getStyle(),
+                directAlignment || style.alignment() == null ? p.getAlignment() : style.alignment(),
+                p.getFirstLineIndent(),
+                style.firstLineIndent(),
+                p.getSpacingBetween() != -1 ? p.getSpacingBetween() : style.spacingBetween(),
+                p.getSpacingBefore() != -1 ? p.getSpacingBefore() : style.spacingBefore(),
+                p.getSpacingAfter() != -1 ? p.getSpacingAfter() : style.spacingAfter(),
+                numId != null ? numId.intValue() : null,
+                ilvl != null ? ilvl.intValue() : 0,
+                level != null ? level.numFmt() : null,
+                p.getText(),
+                runs);
+    }
+
+    private DocxRun toRun(XWPFRun r, String paragraphStyleId) {
+        List<DocxPicture> pictures = new ArrayList<>();
+        for (XWPFPicture picture : r.getEmbeddedPictures()) {
+            XWPFPictureData pictureData = picture.getPictureData();
+            if (pictureData == null) continue;
+            pictures.add(new DocxPicture(pictureData.getData(), pictureData.suggestFileExtension().toLowerCase(Locale.ROOT)));
+        }
+        String runStyleId = r.getStyle();
+        // как и в StaxDocxReader, полупункты w:sz делятся на два с отбрасыванием дробной части
+        Double fontSize = r.getFontSizeAsDouble();
+        DocxStyle style = styles.run(paragraphStyleId, runStyleId == null || runStyleId.isEmpty() ? null : runStyleId);
+        return new DocxRun(
+                r.text(),
+                fontSize != null ? fontSize.intValue() : style.fontSize(),
+                r.getFontFamily() != null ? r.getFontFamily() : style.fontFamily(),
+                r.isBold(),
+                r.isItalic(),
+                r.getUnderline() != UnderlinePatterns.NONE,
+                pictures);
+    }
+
+    // styles.xml разбирается тем же кодом, что и в StaxDocxReader, вместо обхода CTStyle на каждый абзац
+    private DocxStyles readStyles(XWPFDocument doc) throws Exception {
+        XWPFStyles docStyles = doc.getStyles();
+        if (docStyles == null) {
+            return DocxStyles.empty();
+        }
+        try (InputStream in = docStyles.getPackagePart().getInputStream()) {
+            return StaxDocxReader.readStyles(in);
+        }
+    }
+
+    private DocxNumbering readNumbering(XWPFDocument doc) throws Exception {
+        XWPFNumbering docNumbering = doc.getNumbering();
+        if (docNumbering == null) {
+            return DocxNumbering.EMPTY;
+        }
+        try (InputStream in = docNumbering.getPackagePart().getInputStream()) {
+            return StaxDocxReader.readNumbering(in);
+        }
+    }
+
+    private DocxPageLayout pageLayout(XWPFDocument doc) {
+        DocxPageLayout defaults = DocxPageLayout.DEFAULT;
+        CTSectPr sectPr = doc.getDocument().getBody().getSectPr();
+        if (sectPr == null) {
+            return defaults;
+        }
+        CTPageSz size = sectPr.getPgSz();
+        CTPageMar margins = sectPr.getPgMar();
+        return new DocxPageLayout(
+                size != null ? twips(size.getW(), defaults.pageWidth()) : defaults.pageWidth(),
+                size != null ? twips(size.getH(), defaults.pageHeight()) : defaults.pageHeight(),
+                margins != null ? twips(margins.getLeft(), defaults.marginLeft()) : defaults.marginLeft(),
+                margins != null ? twips(margins.getRight(), defaults.marginRight()) : defaults.marginRight(),
+                margins != null ? twips(margins.getTop(), defaults.marginTop()) : defaults.marginTop(),
+                margins != null ? twips(margins.getBottom(), defaults.marginBottom()) : defaults.marginBottom());
+    }
+
+    private static int twips(Object value, int defaultValue) {
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Integer.parseInt(text);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    private List<String> extractHeaders(XWPFDocument doc) {
+        if (doc.getHeaderList() == null || doc.getHeaderList().isEmpty()) {
+            return null;
+        }
+        List<String> lines = new ArrayList<>();
+        for (XWPFParagraph p : doc.getHeaderList().get(0).getParagraphs()) {
+            lines.add(p.getText());
+        }
+        return lines;
+    }
+
+    private List<String> extractFooters(XWPFDocument doc) {
+        if (doc.getFooterList() == null || doc.getFooterList().isEmpty()) {
+            return null;
+        }
+        List<String> lines = new ArrayList<>();
+        for (XWPFParagraph p : doc.getFooterList().get(0).getParagraphs()) {
+            lines.add(p.getText());
+        }
+        return lines;
+    }
+}
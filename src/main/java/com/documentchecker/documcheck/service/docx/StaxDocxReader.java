@@ -0,0 +1,827 @@
+package com.documentchecker.documcheck.service.docx;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.openxml4j.util.ZipSecureFile;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.springframework.core.io.InputStreamSource;
+
+/**
+ * Читает word/document.xml курсором StAX за один проход, не строя XWPFDocument.
+ * styles.xml, numbering.xml и связи документа маленькие и читаются заранее,
+ * тело документа обрабатывается по одному абзацу/таблице.
+ */
+public class StaxDocxReader implements DocxReader {
+
+    static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    static final String R_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    static final String A_NS = "http://schemas.openxmlformats.org/drawingml/2006/main";
+    static final String PIC_NS = "http://schemas.openxmlformats.org/drawingml/2006/picture";
+    static final String PKG_REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    private static final String DOCUMENT_PART = "word/document.xml";
+    private static final String DOCUMENT_RELS = "word/_rels/document.xml.rels";
+    private static final String STYLES_PART = "word/styles.xml";
+    private static final String NUMBERING_PART = "word/numbering.xml";
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private ZipFile zip;
+    private Map<String, Relationship> relationships = Map.of();
+    private DocxStyles styles = DocxStyles.empty();
+    // Стиль читаемого абзаца: от него наследуют свойства его прогоны
+    private String paragraphStyleId;
+    private DocxNumbering numbering = DocxNumbering.EMPTY;
+
+    private record Relationship(String type, String target, boolean external) {
+    }
+
+    @Override
+    public void read(InputStreamSource source, DocxBodyHandler handler) throws Exception {
+        Path tmp = Files.createTempFile("docx-", ".docx");
+        try {
+            try (InputStream in = source.getInputStream()) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try (ZipFile zipFile = new ZipFile(tmp.toFile())) {
+                this.zip = zipFile;
+                if (zip.getEntry(DOCUMENT_PART) == null) {
+                    throw new IOException("В архиве нет " + DOCUMENT_PART);
+                }
+                relationships = readRelationships(DOCUMENT_RELS);
+                styles = readStyles();
+                numbering = readNumbering();
+                handler.opened();
+                handler.numbering(numbering);
+
+                handler.startBody(readHeaderFooter("/header", "hdr"), readHeaderFooter("/footer", "ftr"));
+                readBody(handler);
+            } finally {
+                this.zip = null;
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void readBody(DocxBodyHandler handler) throws IOException, XMLStreamException {
+        try (InputStream in = open(zip.getEntry(DOCUMENT_PART))) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                if (!toStartElement(reader, "body")) {
+                    handler.pageLayout(DocxPageLayout.DEFAULT);
+                    return;
+                }
+                DocxPageLayout layout = DocxPageLayout.DEFAULT;
+                int position = 0;
+                while (nextChild(reader)) {
+                    String name = reader.getLocalName();
+                    if (isW(reader, "sectPr")) {
+                        layout = readSectionLayout(reader);
+                    } else if (isW(reader, "p")) {
+                        handler.paragraph(readParagraph(reader, position));
+                        position++;
+                    } else if (isW(reader, "tbl")) {
+                        handler.table(readTable(reader));
+                        position++;
+                    } else {
+                        if ("sdt".equals(name) && W_NS.equals(reader.getNamespaceURI())) {
+                            position++;
+                        }
+                        skip(reader);
+                    }
+                }
+                // w:sectPr тела идёт последним, так что разметка страницы известна только здесь
+                handler.pageLayout(layout);
+            } catch (XMLStreamException e) {
+                // лимит распаковки срабатывает внутри парсера - наружу отдаётся исходная ошибка
+                if (e.getNestedException() instanceof IOException cause) {
+                    throw cause;
+                }
+                throw e;
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    private DocxTable readTable(XMLStreamReader reader) throws XMLStreamException {
+        List<List<List<DocxParagraph>>> rows = new ArrayList<>();
+        while (nextChild(reader)) {
+            if (isW(reader, "tr")) {
+                List<List<DocxParagraph>> cells = new ArrayList<>();
+                while (nextChild(reader)) {
+                    if (isW(reader, "tc")) {
+                        List<DocxParagraph> paragraphs = new ArrayList<>();
+                        while (nextChild(reader)) {
+                            if (isW(reader, "p")) {
+                                paragraphs.add(readParagraph(reader, -1));
+                            } else {
+                                skip(reader);
+                            }
+                        }
+                        cells.add(paragraphs);
+                    } else {
+                        skip(reader);
+                    }
+                }
+                rows.add(cells);
+            } else {
+                skip(reader);
+            }
+        }
+        return new DocxTable(rows);
+    }
+
+    private DocxParagraph readParagraph(XMLStreamReader reader, int bodyPosition) throws XMLStreamException {
+        ParagraphProps props = new ParagraphProps();
+        paragraphStyleId = null;
+        List<DocxRun> runs = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+
+        while (nextChild(reader)) {
+            if (isW(reader, "pPr")) {
+                readParagraphProps(reader, props);
+                paragraphStyleId = props.styleId;
+            } else {
+                readRunContainer(reader, runs, text);
+            }
+        }
+
+        DocxListLevel level = props.numId != null ? numbering.level(props.numId, props.numIlvl) : null;
+        DocxStyle style = styles.paragraph(props.styleId);
+
+        return new DocxParagraph(
+                bodyPosition,
+                props.styleId,
+                props.alignment != null ? props.alignment
+                        : style.alignment() != null ? style.alignment() : ParagraphAlignment.LEFT,
+                props.firstLineIndent,
+                style.firstLineIndent(),
+                props.spacingBetween != -1 ? props.spacingBetween : style.spacingBetween(),
+                props.spacingBefore != -1 ? props.spacingBefore : style.spacingBefore(),
+                props.spacingAfter != -1 ? props.spacingAfter : style.spacingAfter(),
+                props.numId,
+                props.numIlvl,
+                level != null ? level.numFmt() : null,
+                text.toString(),
+                runs);
+    }
+
+    // Порядок и набор контейнеров повторяет XWPFParagraph.buildRunsInOrderFromXml
+    private void readRunContainer(XMLStreamReader reader, List<DocxRun> runs, StringBuilder text) throws XMLStreamException {
+        if (!W_NS.equals(reader.getNamespaceURI())) {
+            skip(reader);
+            return;
+        }
+        switch (reader.getLocalName()) {
+            case "r" -> addRun(reader, runs, text);
+            case "hyperlink", "fldSimple" -> {
+                while (nextChild(reader)) {
+                    if (isW(reader, "r")) {
+                        addRun(reader, runs, text);
+                    } else {
+                        skip(reader);
+                    }
+                }
+            }
+            case "ins", "del", "moveFrom", "moveTo" -> {
+                while (nextChild(reader)) {
+                    if (isW(reader, "r")) {
+                        addRun(reader, runs, text);
+                    } else if (isW(reader, "ins")) {
+                        readRunContainer(reader, runs, text);
+                    } else {
+                        skip(reader);
+                    }
+                }
+            }
+            case "smartTag" -> {
+                while (nextChild(reader)) {
+                    readRunContainer(reader, runs, text);
+                }
+            }
+            case "sdt" -> text.append(collectText(reader));
+            default -> skip(reader);
+        }
+    }
+
+    private void addRun(XMLStreamReader reader, List<DocxRun> runs, StringBuilder paragraphText) throws XMLStreamException {
+        RunProps props = new RunProps();
+        StringBuilder text = new StringBuilder();
+        List<DocxPicture> pictures = new ArrayList<>();
+
+        while (nextChild(reader)) {
+            if (!W_NS.equals(reader.getNamespaceURI())) {
+                skip(reader);
+                continue;
+            }
+            switch (reader.getLocalName()) {
+                case "rPr" -> readRunProps(reader, props);
+                case "t", "delText" -> {
+                    if ("delText".equals(reader.getLocalName())) {
+                        props.deleted = true;
+                    }
+                    String value = reader.getElementText();
+                    text.append(props.caps ? value.toUpperCase(LocaleUtil.getUserLocale()) : value);
+                }
+                case "tab", "ptab" -> {
+                    text.append('\t');
+                    skip(reader);
+                }
+                case "br", "cr" -> {
+                    text.append('\n');
+                    skip(reader);
+                }
+                case "footnoteReference", "endnoteReference" -> {
+                    String kind = "footnoteReference".equals(reader.getLocalName()) ? "footnoteRef" : "endnoteRef";
+                    text.append('[').append(kind).append(':').append(attr(reader, "id")).append(']');
+                    skip(reader);
+                }
+                case "drawing" -> readPictures(reader, pictures);
+                default -> skip(reader);
+            }
+        }
+
+        DocxStyle style = styles.run(paragraphStyleId, props.styleId);
+        DocxRun run = new DocxRun(text.toString(),
+                props.fontSize != -1 ? props.fontSize : style.fontSize(),
+                props.fontFamily != null ? props.fontFamily : style.fontFamily(),
+                props.bold, props.italic, props.underline, pictures);
+        runs.add(run);
+        if (!props.deleted) {
+            paragraphText.append(run.text());
+        }
+    }
+
+    private void readPictures(XMLStreamReader reader, List<DocxPicture> pictures) throws XMLStreamException {
+        int depth = 1;
+        boolean inPicture = false;
+        int pictureDepth = 0;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (!inPicture && "pic".equals(reader.getLocalName()) && PIC_NS.equals(reader.getNamespaceURI())) {
+                    inPicture = true;
+                    pictureDepth = depth;
+                } else if (inPicture && "blip".equals(reader.getLocalName()) && A_NS.equals(reader.getNamespaceURI())) {
+                    DocxPicture picture = loadPicture(reader.getAttributeValue(R_NS, "embed"));
+                    if (picture != null) {
+                        pictures.add(picture);
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (inPicture && depth == pictureDepth) {
+                    inPicture = false;
+                }
+                depth--;
+            }
+        }
+    }
+
+    // Размер в каталоге архива может быть ложным: распакованное сверх лимита POI (см. ArchiveGuard) считается ошибкой
+    private InputStream open(ZipEntry entry) throws IOException {
+        return new LimitedInputStream(zip.getInputStream(entry), entry.getName(), ZipSecureFile.getMaxEntrySize());
+    }
+
+    private DocxPicture loadPicture(String relationId) {
+        if (relationId == null) return null;
+        Relationship rel = relationships.get(relationId);
+        if (rel == null || rel.external() || !rel.type().endsWith("/image")) return null;
+
+        ZipEntry entry = zip.getEntry(rel.target());
+        if (entry == null) return null;
+        try (InputStream in = open(entry)) {
+            String name = entry.getName();
+            String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+            return new DocxPicture(in.readAllBytes(), extension);
+        } catch (IOException e) {
+            System.out.println("ОШИБКА : " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static class LimitedInputStream extends FilterInputStream {
+        private final String name;
+        private final long limit;
+        private long read;
+
+        LimitedInputStream(InputStream in, String name, long limit) {
+            super(in);
+            this.name = name;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) throws IOException {
+            read += n;
+            if (read > limit) {
+                throw new IOException("Часть " + name + " больше " + limit + " байт после распаковки");
+            }
+        }
+    }
+
+    private static class ParagraphProps {
+        String styleId;
+        ParagraphAlignment alignment;
+        int firstLineIndent = -1;
+        double spacingBetween = -1;
+        int spacingBefore = -1;
+        int spacingAfter = -1;
+        Integer numId;
+        int numIlvl;
+    }
+
+    private static class RunProps {
+        String styleId;
+        int fontSize = -1;
+        String fontFamily;
+        boolean bold;
+        boolean italic;
+        boolean underline;
+        boolean caps;
+        boolean deleted;
+    }
+
+    private static void readParagraphProps(XMLStreamReader reader, ParagraphProps props) throws XMLStreamException {
+        while (nextChild(reader)) {
+            if (!W_NS.equals(reader.getNamespaceURI())) {
+                skip(reader);
+                continue;
+            }
+            switch (reader.getLocalName()) {
+                case "pStyle" -> props.styleId = attr(reader, "val");
+                case "jc" -> props.alignment = toAlignment(attr(reader, "val"));
+                case "ind" -> props.firstLineIndent = parseTwips(attr(reader, "firstLine"), -1);
+                case "spacing" -> {
+                    String line = attr(reader, "line");
+                    if (line != null) {
+                        String rule = attr(reader, "lineRule");
+                        props.spacingBetween = parseTwips(line, 0) / ((rule == null || "auto".equals(rule)) ? 240.0 : 20.0);
+                    }
+                    props.spacingBefore = parseTwips(attr(reader, "before"), -1);
+                    props.spacingAfter = parseTwips(attr(reader, "after"), -1);
+                }
+                case "numPr" -> {
+                    while (nextChild(reader)) {
+                        if (isW(reader, "numId")) {
+                            props.numId = parseTwips(attr(reader, "val"), 0);
+                        } else if (isW(reader, "ilvl")) {
+                            props.numIlvl = parseTwips(attr(reader, "val"), 0);
+                        }
+                        skip(reader);
+                    }
+                    continue;
+                }
+                default -> {
+                }
+            }
+            skip(reader);
+        }
+    }
+
+    private static void readRunProps(XMLStreamReader reader, RunProps props) throws XMLStreamException {
+        boolean fontsSeen = false;
+        while (nextChild(reader)) {
+            if (!W_NS.equals(reader.getNamespaceURI())) {
+                skip(reader);
+                continue;
+            }
+            switch (reader.getLocalName()) {
+                case "rStyle" -> props.styleId = attr(reader, "val");
+                case "sz" -> {
+                    String val = attr(reader, "val");
+                    if (val != null && props.fontSize == -1) {
+                        try {
+                            props.fontSize = new BigDecimal(val).divide(BigDecimal.valueOf(2)).intValue();
+                        } catch (NumberFormatException e) {
+                            props.fontSize = -1;
+                        }
+                    }
+                }
+                case "rFonts" -> {
+                    if (!fontsSeen) {
+                        props.fontFamily = attr(reader, "ascii");
+                        fontsSeen = true;
+                    }
+                }
+                case "b" -> props.bold = isOn(attr(reader, "val"));
+                case "i" -> props.italic = isOn(attr(reader, "val"));
+                case "caps", "smallCaps" -> props.caps = props.caps || isOn(attr(reader, "val"));
+                case "u" -> {
+                    String val = attr(reader, "val");
+                    props.underline = val != null && !"none".equals(val);
+                }
+                default -> {
+                }
+            }
+            skip(reader);
+        }
+    }
+
+    // w:sectPr тела: размер страницы и поля. Внутри w:sectPrChange лежат прежние значения - они пропускаются
+    private static DocxPageLayout readSectionLayout(XMLStreamReader reader) throws XMLStreamException {
+        DocxPageLayout defaults = DocxPageLayout.DEFAULT;
+        int width = defaults.pageWidth();
+        int height = defaults.pageHeight();
+        int left = defaults.marginLeft();
+        int right = defaults.marginRight();
+        int top = defaults.marginTop();
+        int bottom = defaults.marginBottom();
+        while (nextChild(reader)) {
+            if (isW(reader, "pgSz")) {
+                width = parseTwips(attr(reader, "w"), width);
+                height = parseTwips(attr(reader, "h"), height);
+            } else if (isW(reader, "pgMar")) {
+                left = parseTwips(attr(reader, "left"), left);
+                right = parseTwips(attr(reader, "right"), right);
+                top = parseTwips(attr(reader, "top"), top);
+                bottom = parseTwips(attr(reader, "bottom"), bottom);
+            }
+            skip(reader);
+        }
+        return new DocxPageLayout(width, height, left, right, top, bottom);
+    }
+
+    private List<String> readHeaderFooter(String typeSuffix, String rootName) throws IOException, XMLStreamException {
+        Relationship first = null;
+        for (Relationship rel : relationships.values()) {
+            if (!rel.external() && rel.type().endsWith(typeSuffix)) {
+                first = rel;
+                break;
+            }
+        }
+        if (first == null || zip.getEntry(first.target()) == null) {
+            return null;
+        }
+        List<String> lines = new ArrayList<>();
+        try (InputStream in = open(zip.getEntry(first.target()))) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                if (toStartElement(reader, rootName)) {
+                    while (nextChild(reader)) {
+                        if (isW(reader, "p")) {
+                            lines.add(readParagraph(reader, -1).text());
+                        } else {
+                            skip(reader);
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return lines;
+    }
+
+    private Map<String, Relationship> readRelationships(String partName) throws IOException, XMLStreamException {
+        ZipEntry entry = zip.getEntry(partName);
+        if (entry == null) return Map.of();
+
+        // POI перебирает связи в порядке их id, от этого зависит, какой колонтитул считается первым
+        Map<String, Relationship> result = new TreeMap<>();
+        try (InputStream in = open(entry)) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && "Relationship".equals(reader.getLocalName())) {
+                        String id = reader.getAttributeValue(null, "Id");
+                        String type = reader.getAttributeValue(null, "Type");
+                        String target = reader.getAttributeValue(null, "Target");
+                        boolean external = "External".equals(reader.getAttributeValue(null, "TargetMode"));
+                        if (id != null && type != null && target != null) {
+                            result.put(id, new Relationship(type, external ? target : resolveTarget(target), external));
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return result;
+    }
+
+    private DocxStyles readStyles() throws IOException, XMLStreamException {
+        ZipEntry entry = zip.getEntry(STYLES_PART);
+        if (entry == null) return DocxStyles.empty();
+
+        try (InputStream in = open(entry)) {
+            return readStyles(in);
+        }
+    }
+
+    // Разбирает styles.xml; PoiDocxReader берёт ту же таблицу, чтобы оба движка наследовали стили одинаково
+    static DocxStyles readStyles(InputStream in) throws XMLStreamException {
+        Map<String, DocxStyles.Definition> definitions = new HashMap<>();
+        DocxStyle docDefaults = DocxStyle.EMPTY;
+        String defaultParagraphStyle = null;
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+        try {
+            if (!toStartElement(reader, "styles")) return DocxStyles.empty();
+            while (nextChild(reader)) {
+                if (isW(reader, "docDefaults")) {
+                    ParagraphProps paragraphProps = new ParagraphProps();
+                    RunProps runProps = new RunProps();
+                    while (nextChild(reader)) {
+                        if (isW(reader, "pPrDefault") || isW(reader, "rPrDefault")) {
+                            readStyleProps(reader, paragraphProps, runProps);
+                        } else {
+                            skip(reader);
+                        }
+                    }
+                    docDefaults = toStyle(paragraphProps, runProps);
+                } else if (isW(reader, "style")) {
+                    String styleId = attr(reader, "styleId");
+                    String isDefault = attr(reader, "default");
+                    boolean defaultParagraph = "paragraph".equals(attr(reader, "type")) && isDefault != null && isOn(isDefault);
+                    String basedOn = null;
+                    ParagraphProps paragraphProps = new ParagraphProps();
+                    RunProps runProps = new RunProps();
+                    while (nextChild(reader)) {
+                        if (isW(reader, "basedOn")) {
+                            basedOn = attr(reader, "val");
+                            skip(reader);
+                        } else {
+                            readStyleProps(reader, paragraphProps, runProps);
+                        }
+                    }
+                    if (styleId != null) {
+                        definitions.put(styleId, new DocxStyles.Definition(basedOn, toStyle(paragraphProps, runProps)));
+                        if (defaultParagraph && defaultParagraphStyle == null) {
+                            defaultParagraphStyle = styleId;
+                        }
+                    }
+                } else {
+                    skip(reader);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return new DocxStyles(definitions, docDefaults, defaultParagraphStyle);
+    }
+
+    // Текущий элемент - w:style или w:pPrDefault/w:rPrDefault; читает вложенные w:pPr и w:rPr
+    private static void readStyleProps(XMLStreamReader reader, ParagraphProps paragraphProps, RunProps runProps) throws XMLStreamException {
+        if (isW(reader, "pPr")) {
+            readParagraphProps(reader, paragraphProps);
+        } else if (isW(reader, "rPr")) {
+            readRunProps(reader, runProps);
+        } else if (isW(reader, "pPrDefault") || isW(reader, "rPrDefault")) {
+            while (nextChild(reader)) {
+                readStyleProps(reader, paragraphProps, runProps);
+            }
+        } else {
+            skip(reader);
+        }
+    }
+
+    private static DocxStyle toStyle(ParagraphProps paragraphProps, RunProps runProps) {
+        return new DocxStyle(runProps.fontSize, runProps.fontFamily, paragraphProps.alignment,
+                paragraphProps.firstLineIndent, paragraphProps.spacingBetween,
+                paragraphProps.spacingBefore, paragraphProps.spacingAfter);
+    }
+
+    private DocxNumbering readNumbering() throws IOException, XMLStreamException {
+        ZipEntry entry = zip.getEntry(NUMBERING_PART);
+        if (entry == null) return DocxNumbering.EMPTY;
+
+        try (InputStream in = open(entry)) {
+            return readNumbering(in);
+        }
+    }
+
+    // Разбирает numbering.xml один раз: w:num ссылается на w:abstractNum, w:lvlOverride меняет начальный номер уровня
+    static DocxNumbering readNumbering(InputStream in) throws XMLStreamException {
+        Map<Integer, Map<Integer, DocxListLevel>> abstractLevels = new HashMap<>();
+        Map<Integer, Integer> numToAbstract = new HashMap<>();
+        Map<Integer, Map<Integer, Integer>> startOverrides = new HashMap<>();
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+        try {
+            if (!toStartElement(reader, "numbering")) return DocxNumbering.EMPTY;
+            while (nextChild(reader)) {
+                if (isW(reader, "abstractNum")) {
+                    int abstractId = parseTwips(attr(reader, "abstractNumId"), -1);
+                    Map<Integer, DocxListLevel> levels = new HashMap<>();
+                    while (nextChild(reader)) {
+                        if (isW(reader, "lvl")) {
+                            int ilvl = parseTwips(attr(reader, "ilvl"), -1);
+                            String numFmt = null;
+                            int start = 1;
+                            while (nextChild(reader)) {
+                                if (isW(reader, "numFmt") && attr(reader, "val") != null) {
+                                    numFmt = attr(reader, "val");
+                                } else if (isW(reader, "start")) {
+                                    start = parseTwips(attr(reader, "val"), 1);
+                                }
+                                skip(reader);
+                            }
+                            if (numFmt != null) {
+                                levels.put(ilvl, new DocxListLevel(numFmt, start));
+                            }
+                        } else {
+                            skip(reader);
+                        }
+                    }
+                    abstractLevels.put(abstractId, levels);
+                } else if (isW(reader, "num")) {
+                    int numId = parseTwips(attr(reader, "numId"), -1);
+                    while (nextChild(reader)) {
+                        if (isW(reader, "abstractNumId")) {
+                            numToAbstract.put(numId, parseTwips(attr(reader, "val"), -1));
+                            skip(reader);
+                        } else if (isW(reader, "lvlOverride")) {
+                            int ilvl = parseTwips(attr(reader, "ilvl"), -1);
+                            while (nextChild(reader)) {
+                                if (isW(reader, "startOverride")) {
+                                    startOverrides.computeIfAbsent(numId, id -> new HashMap<>())
+                                            .put(ilvl, parseTwips(attr(reader, "val"), 1));
+                                }
+                                skip(reader);
+                            }
+                        } else {
+                            skip(reader);
+                        }
+                    }
+                } else {
+                    skip(reader);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        Map<Long, DocxListLevel> result = new HashMap<>();
+        numToAbstract.forEach((numId, abstractId) -> {
+            Map<Integer, DocxListLevel> levels = abstractLevels.get(abstractId);
+            if (levels == null) return;
+            Map<Integer, Integer> overrides = startOverrides.getOrDefault(numId, Map.of());
+            levels.forEach((ilvl, level) -> {
+                Integer start = overrides.get(ilvl);
+                result.put(DocxNumbering.key(numId, ilvl), start != null ? new DocxListLevel(level.numFmt(), start) : level);
+            });
+        });
+        return new DocxNumbering(result);
+    }
+
+    private String collectText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (isW(reader, "t")) {
+                    text.append(reader.getElementText());
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        return text.toString();
+    }
+
+    private static String resolveTarget(String target) {
+        if (target.startsWith("/")) {
+            return target.substring(1);
+        }
+        String path = "word/" + target;
+        while (path.contains("/../")) {
+            int idx = path.indexOf("/../");
+            int parent = path.lastIndexOf('/', idx - 1);
+            path = (parent < 0 ? "" : path.substring(0, parent + 1)) + path.substring(idx + 4);
+        }
+        return path;
+    }
+
+    private static ParagraphAlignment toAlignment(String val) {
+        if (val == null) return ParagraphAlignment.LEFT;
+        return switch (val) {
+            case "start" -> ParagraphAlignment.START;
+            case "center" -> ParagraphAlignment.CENTER;
+            case "end" -> ParagraphAlignment.END;
+            case "both" -> ParagraphAlignment.BOTH;
+            case "mediumKashida" -> ParagraphAlignment.MEDIUM_KASHIDA;
+            case "distribute" -> ParagraphAlignment.DISTRIBUTE;
+            case "numTab" -> ParagraphAlignment.NUM_TAB;
+            case "highKashida" -> ParagraphAlignment.HIGH_KASHIDA;
+            case "lowKashida" -> ParagraphAlignment.LOW_KASHIDA;
+            case "thaiDistribute" -> ParagraphAlignment.THAI_DISTRIBUTE;
+            case "right" -> ParagraphAlignment.RIGHT;
+            default -> ParagraphAlignment.LEFT;
+        };
+    }
+
+    private static boolean isOn(String val) {
+        return val == null || "true".equals(val) || "1".equals(val) || "on".equals(val);
+    }
+
+    private static int parseTwips(String val, int defaultValue) {
+        if (val == null) return defaultValue;
+        try {
+            return Integer.parseInt(val);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static String attr(XMLStreamReader reader, String localName) {
+        return reader.getAttributeValue(W_NS, localName);
+    }
+
+    private static boolean isW(XMLStreamReader reader, String localName) {
+        return localName.equals(reader.getLocalName()) && W_NS.equals(reader.getNamespaceURI());
+    }
+
+    private static boolean toStartElement(XMLStreamReader reader, String localName) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && isW(reader, localName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Переходит к следующему дочернему элементу текущего элемента; false - дошли до его закрывающего тега
+    private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
@@ -0,0 +1,12 @@
+package com.documentchecker.documcheck.service.rule;
+
+/**
+ * Проверка правила сразу по всему документу: для каждого нарушающего элемента
+ * выставляет bit в violations[i] (i - номер прогона или абзаца в FormatColumns).
+ * Текст сообщения строится потом, только для отмеченных элементов, через CompiledRule.
+ */
+@FunctionalInterface
+public interface ColumnCheck {
+
+    void check(FormatColumns columns, int[] violations, int bit);
+}
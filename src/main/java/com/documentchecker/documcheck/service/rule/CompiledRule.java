@@ -0,0 +1,8 @@
+package com.documentchecker.documcheck.service.rule;
+
+@FunctionalInterface
+public interface CompiledRule {
+
+    // null, если элемент соответствует правилу
+    RuleViolation check(FormatValues values);
+}
@@ -0,0 +1,65 @@
+package com.documentchecker.documcheck.service.rule;
+
+import java.util.Set;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+@Order(50)
+public class FirstLineIndentRule implements GostRule {
+
+    static final String ID = "first-line-indent";
+
+    private static final double TWIPS_PER_CM = 567.0;
+    private static final int TOLERANCE_TWIPS = 40;
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public RuleScope scope() {
+        return RuleScope.PARAGRAPH;
+    }
+
+    @Override
+    public Set<FormatProperty> requiredProperties() {
+        return Set.of(FormatProperty.FIRST_LINE_INDENT);
+    }
+
+    @Override
+    public CompiledRule compile(GostProfile profile) {
+        double expected = profile.indent() * TWIPS_PER_CM;
+        double min = expected - TOLERANCE_TWIPS;
+        double max = expected + TOLERANCE_TWIPS;
+        // найденное и ожидаемое значения - в твипах, как в самом документе
+        String expectedValue = String.valueOf(Math.round(expected));
+        String suffix = " (ожидается ~" + profile.indent() + "см)";
+        return values -> {
+            int indent = values.firstLineIndent();
+            if (indent < min || indent > max) {
+                return new RuleViolation(ID, String.valueOf(indent), expectedValue,
+                        "Неверный отступ первой строки: " + indent + suffix);
+            }
+            return null;
+        };
+    }
+
+    @Override
+    public ColumnCheck compileColumns(GostProfile profile) {
+        double expected = profile.indent() * TWIPS_PER_CM;
+        double min = expected - TOLERANCE_TWIPS;
+        double max = expected + TOLERANCE_TWIPS;
+        return (columns, violations, bit) -> {
+            int[] indents = columns.firstLineTwips();
+            for (int i = 0; i < indents.length; i++) {
+                int indent = indents[i];
+                if (indent < min || indent > max) {
+                    violations[i] |= bit;
+                }
+            }
+        };
+    }
+}
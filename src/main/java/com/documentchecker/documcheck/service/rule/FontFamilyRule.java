@@ -0,0 +1,59 @@
+package com.documentchecker.documcheck.service.rule;
+
+import java.util.Set;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+@Order(20)
+public class FontFamilyRule implements GostRule {
+
+    static final String ID = "font-family";
+
+    private static final String EXPECTED_FONT = "Times New Roman";
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public RuleScope scope() {
+        return RuleScope.RUN;
+    }
+
+    @Override
+    public Set<FormatProperty> requiredProperties() {
+        return Set.of(FormatProperty.FONT_FAMILY);
+    }
+
+    @Override
+    public CompiledRule compile(GostProfile profile) {
+        return values -> {
+            String fontFamily = values.fontFamily();
+            if (fontFamily != null && !EXPECTED_FONT.equalsIgnoreCase(fontFamily)) {
+                return new RuleViolation(ID, fontFamily, EXPECTED_FONT, "Неверный шрифт: " + fontFamily);
+            }
+            return null;
+        };
+    }
+
+    @Override
+    public ColumnCheck compileColumns(GostProfile profile) {
+        return (columns, violations, bit) -> {
+            String[] fonts = columns.fonts();
+            boolean[] wrong = new boolean[fonts.length];
+            for (int f = 0; f < fonts.length; f++) {
+                wrong[f] = !EXPECTED_FONT.equalsIgnoreCase(fonts[f]);
+            }
+            int[] fontIds = columns.fontIds();
+            for (int i = 0; i < fontIds.length; i++) {
+                int fontId = fontIds[i];
+                if (fontId != -1 && wrong[fontId]) {
+                    violations[i] |= bit;
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.documentchecker.documcheck.service.rule;
+
+import java.util.Set;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+@Order(10)
+public class FontSizeRule implements GostRule {
+
+    static final String ID = "font-size";
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public RuleScope scope() {
+        return RuleScope.RUN;
+    }
+
+    @Override
+    public Set<FormatProperty> requiredProperties() {
+        return Set.of(FormatProperty.FONT_SIZE);
+    }
+
+    @Override
+    public CompiledRule compile(GostProfile profile) {
+        int expected = profile.fontSize();
+        String expectedValue = String.valueOf(expected);
+        String suffix = "pt (ожидается " + expected + "pt)";
+        return values -> {
+            int fontSize = values.fontSize();
+            if (fontSize != -1 && fontSize != expected) {
+                return new RuleViolation(ID, String.valueOf(fontSize), expectedValue,
+                        "Неверный размер шрифта: " + fontSize + suffix);
+            }
+            return null;
+        };
+    }
+
+    @Override
+    public ColumnCheck compileColumns(GostProfile profile) {
+        int expected = profile.fontSize() * 2;
+        return (columns, violations, bit) -> {
+            int[] sizes = columns.fontSizeHalfPts();
+            for (int i = 0; i < sizes.length; i++) {
+                int size = sizes[i];
+                if (size != -1 && size != expected) {
+                    violations[i] |= bit;
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package com.documentchecker.documcheck.service.rule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+
+import com.documentchecker.documcheck.service.docx.DocxParagraph;
+import com.documentchecker.documcheck.service.docx.DocxRun;
+import com.documentchecker.documcheck.service.docx.DocxTable;
+
+/**
+ * Свойства форматирования документа по столбцам: по массиву на свойство, индекс - номер
+ * абзаца или прогона в порядке обхода (абзацы ячеек таблицы идут по строкам и ячейкам).
+ * Прогоны абзаца i занимают индексы с firstRun[i] по firstRun[i + 1] - 1.
+ * Отсутствующее значение - -1 (для шрифта и выравнивания тоже).
+ */
+public final class FormatColumns {
+
+    private static final ParagraphAlignment[] ALIGNMENTS = ParagraphAlignment.values();
+
+    private final int[] fontSizeHalfPts;
+    private final int[] fontIds;
+    private final String[] fonts;
+    private final byte[] alignment;
+    private final int[] firstLineTwips;
+    private final double[] lineSpacing;
+    private final int[] firstRun;
+
+    private FormatColumns(int[] fontSizeHalfPts, int[] fontIds, String[] fonts, byte[] alignment,
+            int[] firstLineTwips, double[] lineSpacing, int[] firstRun) {
+        this.fontSizeHalfPts = fontSizeHalfPts;
+        this.fontIds = fontIds;
+        this.fonts = fonts;
+        this.alignment = alignment;
+        this.firstLineTwips = firstLineTwips;
+        this.lineSpacing = lineSpacing;
+        this.firstRun = firstRun;
+    }
+
+    // elements - абзацы и таблицы тела документа, как их отдаёт DocxDocument
+    public static FormatColumns of(List<Object> elements) {
+        List<DocxParagraph> paragraphs = new ArrayList<>();
+        for (Object element : elements) {
+            if (element instanceof DocxParagraph paragraph) {
+                paragraphs.add(paragraph);
+            } else {
+                for (List<List<DocxParagraph>> row : ((DocxTable) element).rows()) {
+                    for (List<DocxParagraph> cell : row) {
+                        paragraphs.addAll(cell);
+                    }
+                }
+            }
+        }
+
+        int runCount = 0;
+        for (DocxParagraph paragraph : paragraphs) {
+            runCount += paragraph.runs().size();
+        }
+
+        int paragraphCount = paragraphs.size();
+        byte[] alignment = new byte[paragraphCount];
+        int[] firstLineTwips = new int[paragraphCount];
+        double[] lineSpacing = new double[paragraphCount];
+        int[] firstRun = new int[paragraphCount + 1];
+        int[] fontSizeHalfPts = new int[runCount];
+        int[] fontIds = new int[runCount];
+        Map<String, Integer> fontDictionary = new HashMap<>();
+        List<String> fonts = new ArrayList<>();
+
+        int run = 0;
+        for (int i = 0; i < paragraphCount; i++) {
+            DocxParagraph paragraph = paragraphs.get(i);
+            alignment[i] = paragraph.alignment() != null ? (byte) paragraph.alignment().ordinal() : -1;
+            firstLineTwips[i] = paragraph.firstLineIndent() != -1 ? paragraph.firstLineIndent() : paragraph.styleFirstLineIndent();
+            lineSpacing[i] = paragraph.spacingBetween();
+            firstRun[i] = run;
+            for (DocxRun r : paragraph.runs()) {
+                fontSizeHalfPts[run] = r.fontSize() != -1 ? r.fontSize() * 2 : -1;
+                if (r.fontFamily() == null) {
+                    fontIds[run] = -1;
+                } else {
+                    fontIds[run] = fontDictionary.computeIfAbsent(r.fontFamily(), font -> {
+                        fonts.add(font);
+                        return fonts.size() - 1;
+                    });
+                }
+                run++;
+            }
+        }
+        firstRun[paragraphCount] = run;
+
+        return new FormatColumns(fontSizeHalfPts, fontIds, fonts.toArray(new String[0]), alignment,
+                firstLineTwips, lineSpacing, firstRun);
+    }
+
+    public int runCount() {
+        return fontSizeHalfPts.length;
+    }
+
+    public int paragraphCount() {
+        return alignment.length;
+    }
+
+    public int[] fontSizeHalfPts() {
+        return fontSizeHalfPts;
+    }
+
+    public int[] fontIds() {
+        return fontIds;
+    }
+
+    // Словарь шрифтов: fontIds[i] - индекс в этом массиве
+    public String[] fonts() {
+        return fonts;
+    }
+
+    // ParagraphAlignment.ordinal()
+    public byte[] alignment() {
+        return alignment;
+    }
+
+    public int[] firstLineTwips() {
+        return firstLineTwips;
+    }
+
+    public double[] lineSpacing() {
+        return lineSpacing;
+    }
+
+    public int firstRun(int paragraph) {
+        return firstRun[paragraph];
+    }
+
+    FormatValues runValues(int run) {
+        int halfPts = fontSizeHalfPts[run];
+        int fontId = fontIds[run];
+        return FormatValues.ofRun(halfPts != -1 ? halfPts / 2 : -1, fontId != -1 ? fonts[fontId] : null);
+    }
+
+    FormatValues paragraphValues(int paragraph) {
+        byte align = alignment[paragraph];
+        return FormatValues.ofParagraph(align != -1 ? ALIGNMENTS[align] : null, firstLineTwips[paragraph], lineSpacing[paragraph]);
+    }
+}
@@ -0,0 +1,9 @@
+package com.documentchecker.documcheck.service.rule;
+
+public enum FormatProperty {
+    FONT_SIZE,
+    FONT_FAMILY,
+    ALIGNMENT,
+    FIRST_LINE_INDENT,
+    LINE_SPACING
+}
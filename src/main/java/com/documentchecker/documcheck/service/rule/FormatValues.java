@@ -0,0 +1,83 @@
+package com.documentchecker.documcheck.service.rule;
+
+import java.util.Set;
+
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+
+import com.documentchecker.documcheck.service.docx.DocxParagraph;
+import com.documentchecker.documcheck.service.docx.DocxRun;
+
+/**
+ * Свойства элемента, прочитанные один раз для всех правил набора.
+ * Заполняются только те поля, которые запросило хотя бы одно правило.
+ */
+public class FormatValues {
+
+    private int fontSize = -1;
+    private String fontFamily;
+    private ParagraphAlignment alignment;
+    private int firstLineIndent = -1;
+    private double lineSpacing = -1;
+
+    static FormatValues of(DocxRun run, Set<FormatProperty> properties) {
+        FormatValues values = new FormatValues();
+        if (properties.contains(FormatProperty.FONT_SIZE)) {
+            values.fontSize = run.fontSize();
+        }
+        if (properties.contains(FormatProperty.FONT_FAMILY)) {
+            values.fontFamily = run.fontFamily();
+        }
+        return values;
+    }
+
+    static FormatValues of(DocxParagraph paragraph, Set<FormatProperty> properties) {
+        FormatValues values = new FormatValues();
+        if (properties.contains(FormatProperty.ALIGNMENT)) {
+            values.alignment = paragraph.alignment();
+        }
+        if (properties.contains(FormatProperty.FIRST_LINE_INDENT)) {
+            values.firstLineIndent = paragraph.firstLineIndent() != -1
+                    ? paragraph.firstLineIndent()
+                    : paragraph.styleFirstLineIndent();
+        }
+        if (properties.contains(FormatProperty.LINE_SPACING)) {
+            values.lineSpacing = paragraph.spacingBetween();
+        }
+        return values;
+    }
+
+    static FormatValues ofRun(int fontSize, String fontFamily) {
+        FormatValues values = new FormatValues();
+        values.fontSize = fontSize;
+        values.fontFamily = fontFamily;
+        return values;
+    }
+
+    static FormatValues ofParagraph(ParagraphAlignment alignment, int firstLineIndent, double lineSpacing) {
+        FormatValues values = new FormatValues();
+        values.alignment = alignment;
+        values.firstLineIndent = firstLineIndent;
+        values.lineSpacing = lineSpacing;
+        return values;
+    }
+
+    public int fontSize() {
+        return fontSize;
+    }
+
+    public String fontFamily() {
+        return fontFamily;
+    }
+
+    public ParagraphAlignment alignment() {
+        return alignment;
+    }
+
+    public int firstLineIndent() {
+        return firstLineIndent;
+    }
+
+    public double lineSpacing() {
+        return lineSpacing;
+    }
+}
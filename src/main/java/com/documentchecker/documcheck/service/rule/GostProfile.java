@@ -0,0 +1,4 @@
+package com.documentchecker.documcheck.service.rule;
+
+public record GostProfile(int fontSize, double indent, double lineSpacing) {
+}
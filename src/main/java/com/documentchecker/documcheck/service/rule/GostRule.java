@@ -0,0 +1,25 @@
+package com.documentchecker.documcheck.service.rule;
+
+import java.util.Set;
+
+/**
+ * Правило проверки по ГОСТ. Правило объявляет, какие свойства элемента ему нужны,
+ * и компилируется под конкретный профиль (размер шрифта, отступ, интервал) один раз.
+ * Чтобы добавить правило, достаточно объявить бин, реализующий этот интерфейс.
+ */
+public interface GostRule {
+
+    // Постоянный идентификатор правила для внешних клиентов, например font-size
+    String id();
+
+    RuleScope scope();
+
+    Set<FormatProperty> requiredProperties();
+
+    CompiledRule compile(GostProfile profile);
+
+    // Проверка по столбцам для всего документа; null - набор проверит правило поэлементно через compile
+    default ColumnCheck compileColumns(GostProfile profile) {
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.documentchecker.documcheck.service.rule;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+@Service
+public class GostRuleEngine {
+
+    private static final int MAX_COMPILED_PROFILES = 256;
+
+    private final List<GostRule> rules;
+    private final Map<GostProfile, GostRuleSet> compiled = new ConcurrentHashMap<>();
+
+    public GostRuleEngine(List<GostRule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    public static GostRuleEngine builtIn() {
+        return new GostRuleEngine(List.of(
+                new FontSizeRule(),
+                new FontFamilyRule(),
+                new HeadingAlignmentRule(),
+                new TextAlignmentRule(),
+                new FirstLineIndentRule(),
+                new LineSpacingRule()));
+    }
+
+    public GostRuleSet ruleSet(int fontSize, double indent, double lineSpacing) {
+        GostProfile profile = new GostProfile(fontSize, indent, lineSpacing);
+        GostRuleSet ruleSet = compiled.get(profile);
+        if (ruleSet != null) {
+            return ruleSet;
+        }
+        if (compiled.size() >= MAX_COMPILED_PROFILES) {
+            compiled.clear();
+        }
+        return compiled.computeIfAbsent(profile, p -> new GostRuleSet(p, rules));
+    }
+}
@@ -0,0 +1,97 @@
+package com.documentchecker.documcheck.service.rule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.documentchecker.documcheck.service.docx.DocxParagraph;
+import com.documentchecker.documcheck.service.docx.DocxRun;
+
+/**
+ * Набор правил, скомпилированный под один профиль. Неизменяемый, безопасен
+ * для одновременного использования из разных запросов.
+ */
+public class GostRuleSet {
+
+    private final GostProfile profile;
+    private final Map<RuleScope, CompiledRule[]> checks = new EnumMap<>(RuleScope.class);
+    private final Map<RuleScope, ColumnCheck[]> columnChecks = new EnumMap<>(RuleScope.class);
+    private final Map<RuleScope, Set<FormatProperty>> properties = new EnumMap<>(RuleScope.class);
+
+    GostRuleSet(GostProfile profile, List<GostRule> rules) {
+        this.profile = profile;
+        for (RuleScope scope : RuleScope.values()) {
+            List<CompiledRule> compiled = new ArrayList<>();
+            List<ColumnCheck> compiledColumns = new ArrayList<>();
+            Set<FormatProperty> required = EnumSet.noneOf(FormatProperty.class);
+            for (GostRule rule : rules) {
+                if (rule.scope() == scope) {
+                    CompiledRule check = rule.compile(profile);
+                    ColumnCheck columnCheck = rule.compileColumns(profile);
+                    compiled.add(check);
+                    compiledColumns.add(columnCheck != null ? columnCheck : elementwise(scope, check));
+                    required.addAll(rule.requiredProperties());
+                }
+            }
+            checks.put(scope, compiled.toArray(new CompiledRule[0]));
+            columnChecks.put(scope, compiledColumns.toArray(new ColumnCheck[0]));
+            properties.put(scope, required);
+        }
+    }
+
+    public GostProfile profile() {
+        return profile;
+    }
+
+    public void checkRun(DocxRun run, Collection<RuleViolation> errors) {
+        CompiledRule[] runChecks = checks.get(RuleScope.RUN);
+        if (runChecks.length == 0) return;
+        run(runChecks, FormatValues.of(run, properties.get(RuleScope.RUN)), errors);
+    }
+
+    public void checkParagraph(RuleScope scope, DocxParagraph paragraph, Collection<RuleViolation> errors) {
+        CompiledRule[] paragraphChecks = checks.get(scope);
+        if (paragraphChecks.length == 0) return;
+        run(paragraphChecks, FormatValues.of(paragraph, properties.get(scope)), errors);
+    }
+
+    // Проверка всего документа по столбцам. null, если в какой-то области больше правил, чем бит в маске
+    public RuleViolations check(FormatColumns columns) {
+        RuleViolations violations = new RuleViolations(columns, checks);
+        for (RuleScope scope : RuleScope.values()) {
+            ColumnCheck[] scopeChecks = columnChecks.get(scope);
+            if (scopeChecks.length > Integer.SIZE) {
+                return null;
+            }
+            int[] mask = new int[scope == RuleScope.RUN ? columns.runCount() : columns.paragraphCount()];
+            for (int i = 0; i < scopeChecks.length; i++) {
+                scopeChecks[i].check(columns, mask, 1 << i);
+            }
+            violations.put(scope, mask);
+        }
+        return violations;
+    }
+
+    private static ColumnCheck elementwise(RuleScope scope, CompiledRule check) {
+        return (columns, violations, bit) -> {
+            for (int i = 0; i < violations.length; i++) {
+                if (check.check(scope == RuleScope.RUN ? columns.runValues(i) : columns.paragraphValues(i)) != null) {
+                    violations[i] |= bit;
+                }
+            }
+        };
+    }
+
+    private void run(CompiledRule[] rules, FormatValues values, Collection<RuleViolation> errors) {
+        for (CompiledRule rule : rules) {
+            RuleViolation violation = rule.check(values);
+            if (violation != null) {
+                errors.add(violation);
+            }
+        }
+    }
+}
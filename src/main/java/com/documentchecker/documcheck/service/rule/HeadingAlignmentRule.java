@@ -0,0 +1,54 @@
+package com.documentchecker.documcheck.service.rule;
+
+import java.util.Set;
+
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+@Order(30)
+public class HeadingAlignmentRule implements GostRule {
+
+    static final String ID = "heading-alignment";
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public RuleScope scope() {
+        return RuleScope.HEADING;
+    }
+
+    @Override
+    public Set<FormatProperty> requiredProperties() {
+        return Set.of(FormatProperty.ALIGNMENT);
+    }
+
+    @Override
+    public CompiledRule compile(GostProfile profile) {
+        return values -> {
+            ParagraphAlignment alignment = values.alignment();
+            if (alignment != ParagraphAlignment.CENTER) {
+                return new RuleViolation(ID, alignment != null ? alignment.name() : null,
+                        ParagraphAlignment.CENTER.name(), "Заголовок не выровнен по центру");
+            }
+            return null;
+        };
+    }
+
+    @Override
+    public ColumnCheck compileColumns(GostProfile profile) {
+        byte expected = (byte) ParagraphAlignment.CENTER.ordinal();
+        return (columns, violations, bit) -> {
+            byte[] alignment = columns.alignment();
+            for (int i = 0; i < alignment.length; i++) {
+                if (alignment[i] != expected) {
+                    violations[i] |= bit;
+                }
+            }
+        };
+    }
+}
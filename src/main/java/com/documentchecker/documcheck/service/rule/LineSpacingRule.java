@@ -0,0 +1,57 @@
+package com.documentchecker.documcheck.service.rule;
+
+import java.util.Set;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+@Order(60)
+public class LineSpacingRule implements GostRule {
+
+    static final String ID = "line-spacing";
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public RuleScope scope() {
+        return RuleScope.PARAGRAPH;
+    }
+
+    @Override
+    public Set<FormatProperty> requiredProperties() {
+        return Set.of(FormatProperty.LINE_SPACING);
+    }
+
+    @Override
+    public CompiledRule compile(GostProfile profile) {
+        double expected = profile.lineSpacing();
+        String expectedValue = String.valueOf(expected);
+        String suffix = " (ожидается " + expected + ")";
+        return values -> {
+            double spacing = values.lineSpacing();
+            // -1 - интервал не задан в абзаце и наследуется, как и неуказанный размер шрифта
+            if (spacing != -1 && spacing != expected) {
+                return new RuleViolation(ID, String.valueOf(spacing), expectedValue,
+                        "Неверный межстрочный интервал: " + spacing + suffix);
+            }
+            return null;
+        };
+    }
+
+    @Override
+    public ColumnCheck compileColumns(GostProfile profile) {
+        double expected = profile.lineSpacing();
+        return (columns, violations, bit) -> {
+            double[] spacing = columns.lineSpacing();
+            for (int i = 0; i < spacing.length; i++) {
+                if (spacing[i] != -1 && spacing[i] != expected) {
+                    violations[i] |= bit;
+                }
+            }
+        };
+    }
+}
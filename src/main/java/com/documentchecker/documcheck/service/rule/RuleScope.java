@@ -0,0 +1,10 @@
+package com.documentchecker.documcheck.service.rule;
+
+public enum RuleScope {
+    // каждый непустой фрагмент текста
+    RUN,
+    // абзацы основного текста вне таблиц, списков и титульного листа
+    PARAGRAPH,
+    // абзацы, распознанные как заголовки
+    HEADING
+}
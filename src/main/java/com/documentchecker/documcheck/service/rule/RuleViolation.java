@@ -0,0 +1,5 @@
+package com.documentchecker.documcheck.service.rule;
+
+// Нарушение одного правила: идентификатор правила, найденное и ожидаемое значения и текст для пользователя
+public record RuleViolation(String rule, String actual, String expected, String message) {
+}
@@ -0,0 +1,54 @@
+package com.documentchecker.documcheck.service.rule;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Результат проверки документа по столбцам: маска нарушенных правил для каждого прогона
+ * и для каждого абзаца в каждой области. Сообщения строятся по запросу.
+ */
+public class RuleViolations {
+
+    private final FormatColumns columns;
+    private final Map<RuleScope, CompiledRule[]> rules;
+    private final Map<RuleScope, int[]> masks = new EnumMap<>(RuleScope.class);
+
+    RuleViolations(FormatColumns columns, Map<RuleScope, CompiledRule[]> rules) {
+        this.columns = columns;
+        this.rules = rules;
+    }
+
+    void put(RuleScope scope, int[] mask) {
+        masks.put(scope, mask);
+    }
+
+    public void runErrors(int run, Collection<RuleViolation> errors) {
+        int mask = masks.get(RuleScope.RUN)[run];
+        if (mask != 0) {
+            addMessages(rules.get(RuleScope.RUN), mask, columns.runValues(run), errors);
+        }
+    }
+
+    public void paragraphErrors(RuleScope scope, int paragraph, Collection<RuleViolation> errors) {
+        int mask = masks.get(scope)[paragraph];
+        if (mask != 0) {
+            addMessages(rules.get(scope), mask, columns.paragraphValues(paragraph), errors);
+        }
+    }
+
+    public FormatColumns columns() {
+        return columns;
+    }
+
+    private static void addMessages(CompiledRule[] scopeRules, int mask, FormatValues values, Collection<RuleViolation> errors) {
+        while (mask != 0) {
+            int bit = Integer.numberOfTrailingZeros(mask);
+            RuleViolation violation = scopeRules[bit].check(values);
+            if (violation != null) {
+                errors.add(violation);
+            }
+            mask &= mask - 1;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.documentchecker.documcheck.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.poi.wp.usermodel.HeaderFooterType;
+import org.apache.poi.xwpf.usermodel.Document;
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.apache.poi.xwpf.usermodel.XWPFAbstractNum;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFNumbering;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFStyle;
+import org.apache.poi.xwpf.usermodel.XWPFStyles;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTAbstractNum;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTLvl;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTStyle;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STNumberFormat;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STStyleType;
+
+/**
+ * Генератор документов для бенчмарков и тестов (лежит в тестовых исходниках, профиль jmh их видит). Документ детерминирован для одинаковых
+ * параметров: каждый tableEvery-й элемент тела - таблица, каждый listEvery-й абзац - пункт
+ * списка с уровнем до listDepth, каждый imageEvery-й - абзац с картинкой (0 - не добавлять).
+ */
+public final class SyntheticDocx {
+
+    private static final byte[] PNG = Base64.getDecoder().decode(
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNkYPhfDwAChwGA60e6kgAAAABJRU5ErkJggg==");
+    private static final String[] FONTS = {"Times New Roman", "Arial", "Calibri"};
+    private static final ParagraphAlignment[] ALIGNMENTS = {
+            ParagraphAlignment.BOTH, ParagraphAlignment.CENTER, ParagraphAlignment.LEFT};
+
+    private SyntheticDocx() {
+    }
+
+    public static byte[] generate(int paragraphs, int runsPerParagraph, int tableEvery, int listEvery, int listDepth,
+            int imageEvery) throws Exception {
+        Random random = new Random(42);
+        try (XWPFDocument doc = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            addBodyStyle(doc);
+            doc.createHeader(HeaderFooterType.DEFAULT).createParagraph().createRun().setText("Колонтитул");
+            doc.createFooter(HeaderFooterType.DEFAULT).createParagraph().createRun().setText("1");
+            List<BigInteger> lists = addNumbering(doc, listDepth);
+
+            for (int i = 0; i < paragraphs; i++) {
+                if (tableEvery > 0 && i % tableEvery == tableEvery - 1) {
+                    XWPFTable table = doc.createTable(3, 3);
+                    table.getRow(0).getCell(0).setText("Ячейка " + i);
+                    table.getRow(2).getCell(2).setText("Итого");
+                    continue;
+                }
+                XWPFParagraph p = doc.createParagraph();
+                if (i % 50 == 0) {
+                    p.setStyle("Heading1");
+                } else if (listEvery > 0 && i % listEvery == 0 && !lists.isEmpty()) {
+                    p.setNumID(lists.get(random.nextInt(lists.size())));
+                    p.getCTP().getPPr().getNumPr().addNewIlvl().setVal(BigInteger.valueOf(random.nextInt(Math.max(listDepth, 1))));
+                } else if (i % 3 == 0) {
+                    p.setStyle("Body");
+                }
+                p.setAlignment(ALIGNMENTS[random.nextInt(ALIGNMENTS.length)]);
+                p.setFirstLineIndent(random.nextBoolean() ? 709 : random.nextInt(900));
+                p.setSpacingBetween(random.nextBoolean() ? 1.5 : 1.0);
+
+                for (int j = 0; j < runsPerParagraph; j++) {
+                    XWPFRun run = p.createRun();
+                    run.setText(text(random));
+                    run.setFontFamily(FONTS[random.nextInt(FONTS.length)]);
+                    run.setFontSize(random.nextBoolean() ? 14 : 12 + random.nextInt(4));
+                    run.setBold(random.nextInt(5) == 0);
+                    run.setItalic(random.nextInt(7) == 0);
+                }
+                if (imageEvery > 0 && i % imageEvery == imageEvery - 1) {
+                    p.createRun().addPicture(new ByteArrayInputStream(PNG), Document.PICTURE_TYPE_PNG, "image.png", 10000, 10000);
+                }
+            }
+            doc.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static String text(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int words = 5 + random.nextInt(30);
+        for (int w = 0; w < words; w++) {
+            sb.append(random.nextInt(6) == 0 ? "ГОСТ " : "текст" + w + " ");
+        }
+        return sb.toString();
+    }
+
+    private static void addBodyStyle(XWPFDocument doc) {
+        XWPFStyles styles = doc.createStyles();
+        CTStyle style = CTStyle.Factory.newInstance();
+        style.setStyleId("Body");
+        style.setType(STStyleType.PARAGRAPH);
+        style.addNewPPr().addNewInd().setFirstLine(BigInteger.valueOf(709));
+        styles.addStyle(new XWPFStyle(style));
+    }
+
+    private static List<BigInteger> addNumbering(XWPFDocument doc, int listDepth) {
+        List<BigInteger> lists = new ArrayList<>();
+        if (listDepth <= 0) {
+            return lists;
+        }
+        XWPFNumbering numbering = doc.createNumbering();
+        STNumberFormat.Enum[] formats = {STNumberFormat.DECIMAL, STNumberFormat.BULLET};
+        for (int n = 0; n < formats.length; n++) {
+            CTAbstractNum abstractNum = CTAbstractNum.Factory.newInstance();
+            abstractNum.setAbstractNumId(BigInteger.valueOf(n + 1));
+            for (int level = 0; level < listDepth; level++) {
+                CTLvl lvl = abstractNum.addNewLvl();
+                lvl.setIlvl(BigInteger.valueOf(level));
+                lvl.addNewNumFmt().setVal(level % 2 == 0 ? formats[n] : STNumberFormat.LOWER_LETTER);
+            }
+            lists.add(numbering.addNum(numbering.addAbstractNum(new XWPFAbstractNum(abstractNum))));
+        }
+        return lists;
+    }
+}
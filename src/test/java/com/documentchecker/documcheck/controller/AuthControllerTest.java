@@ -0,0 +1,82 @@
+package com.documentchecker.documcheck.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.documentchecker.documcheck.dto.SignInRequest;
+import com.documentchecker.documcheck.model.Role;
+import com.documentchecker.documcheck.model.User;
+import com.documentchecker.documcheck.repository.UserRepository;
+import com.documentchecker.documcheck.service.PasswordHashingService;
+
+@SpringBootTest(properties = {
+        "documcheck.auth.hash-threads=1",
+        "documcheck.auth.hash-queue-capacity=1",
+        "documcheck.auth.retry-after-seconds=7",
+        "documcheck.auth.bcrypt-strength=10"
+})
+class AuthControllerTest {
+
+    @Autowired
+    private AuthController authController;
+
+    @Autowired
+    private PasswordHashingService passwordHashing;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Единственный поток занят, единственное место в очереди тоже: вход отклоняется сразу
+    @Test
+    void saturatedHashPoolAnswersTooManyRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<?> running = passwordHashing.submit(() -> await(release));
+        CompletableFuture<?> queued = passwordHashing.submit(() -> await(release));
+        try {
+            ResponseEntity<?> response = authController.signin(new SignInRequest("nobody", "secret")).get();
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("7");
+        } finally {
+            release.countDown();
+            CompletableFuture.allOf(running, queued).join();
+        }
+    }
+
+    // Хэш силы 4 пересчитывается при входе под текущую силу 10
+    @Test
+    void weakHashIsUpgradedOnSignIn() throws Exception {
+        String username = "rehash-" + System.nanoTime();
+        userRepository.save(User.builder()
+                .username(username)
+                .password(new BCryptPasswordEncoder(4).encode("secret"))
+                .role(Role.ROLE_USER)
+                .build());
+
+        ResponseEntity<?> response = authController.signin(new SignInRequest(username, "secret")).get();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String stored = userRepository.findByUsername(username).orElseThrow().getPassword();
+        assertThat(stored).startsWith("$2a$10$");
+        assertThat(new BCryptPasswordEncoder().matches("secret", stored)).isTrue();
+    }
+
+    private static Object await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
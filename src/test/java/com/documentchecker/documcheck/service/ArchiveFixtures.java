@@ -0,0 +1,110 @@
+package com.documentchecker.documcheck.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import com.documentchecker.documcheck.benchmark.SyntheticDocx;
+
+/**
+ * Генератор архивов для ArchiveGuardTest; готовые файлы лежат в src/test/resources/archives.
+ * Лимиты в тесте маленькие (часть до 1 МБ), поэтому и «бомбы» занимают единицы килобайт.
+ *
+ * mvn test-compile exec:java -Dexec.mainClass=com.documentchecker.documcheck.service.ArchiveFixtures
+ *     -Dexec.classpathScope=test
+ */
+public final class ArchiveFixtures {
+
+    private ArchiveFixtures() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createDirectories(Path.of(args.length > 0 ? args[0] : "src/test/resources/archives"));
+        byte[] valid = SyntheticDocx.generate(20, 2, 0, 0, 0, 0);
+        Files.write(directory.resolve("valid.docx"), valid);
+        // 1.5 МБ текста - больше лимита части
+        Files.write(directory.resolve("oversized-entry.docx"),
+                withEntry(valid, "word/media/big.bin", "ГОСТ 7.32 ".repeat(150_000).getBytes(StandardCharsets.UTF_8)));
+        // 512 КБ нулей сжимаются примерно в 500 раз
+        Files.write(directory.resolve("over-compressed.docx"), withEntry(valid, "word/media/pad.bin", new byte[512 * 1024]));
+        byte[] many = valid;
+        for (int i = 0; i < 60; i++) {
+            many = withEntry(many, "customXml/item" + i + ".xml", "<a/>".getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(directory.resolve("too-many-entries.docx"), many);
+        Files.write(directory.resolve("zip64.docx"), patchSizes(valid, "word/document.xml", 0xFFFFFFFF, null));
+        // в каталоге 1000 байт, на деле document.xml распаковывается в 3 МБ
+        byte[] padded = replaceEntry(valid, "word/document.xml", xml -> xml.replace("<w:body>", "<w:body>" + " ".repeat(3 << 20)));
+        Files.write(directory.resolve("falsified-size.docx"), patchSizes(padded, "word/document.xml", null, 1000));
+        Files.write(directory.resolve("not-a-zip.docx"), "Это не архив docx".repeat(50).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] withEntry(byte[] zip, String name, byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip)); ZipOutputStream copy = new ZipOutputStream(out)) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                copy.putNextEntry(new ZipEntry(entry.getName()));
+                copy.write(in.readAllBytes());
+                copy.closeEntry();
+            }
+            copy.putNextEntry(new ZipEntry(name));
+            copy.write(data);
+            copy.closeEntry();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] replaceEntry(byte[] zip, String name, UnaryOperator<String> edit) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip)); ZipOutputStream copy = new ZipOutputStream(out)) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                byte[] data = in.readAllBytes();
+                if (entry.getName().equals(name)) {
+                    data = edit.apply(new String(data, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+                }
+                copy.putNextEntry(new ZipEntry(entry.getName()));
+                copy.write(data);
+                copy.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    // Переписывает сжатый (compressed) и/или исходный (size) размер части в центральном каталоге и локальном заголовке; null - не менять
+    private static byte[] patchSizes(byte[] zip, String name, Integer compressed, Integer size) {
+        byte[] patched = zip.clone();
+        ByteBuffer buffer = ByteBuffer.wrap(patched).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] expected = name.getBytes(StandardCharsets.UTF_8);
+        for (int position = 0; position + 46 <= patched.length; position++) {
+            if (buffer.getInt(position) != 0x02014b50) {
+                continue;
+            }
+            int nameLength = Short.toUnsignedInt(buffer.getShort(position + 28));
+            if (!Arrays.equals(patched, position + 46, position + 46 + nameLength, expected, 0, expected.length)) {
+                continue;
+            }
+            int local = buffer.getInt(position + 42);
+            if (compressed != null) {
+                buffer.putInt(position + 20, compressed);
+                buffer.putInt(local + 18, compressed);
+            }
+            if (size != null) {
+                buffer.putInt(position + 24, size);
+                buffer.putInt(local + 22, size);
+            }
+        }
+        return patched;
+    }
+}
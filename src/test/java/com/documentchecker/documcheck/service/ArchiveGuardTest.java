@@ -0,0 +1,139 @@
+package com.documentchecker.documcheck.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.poi.openxml4j.util.ZipInputStreamZipEntrySource;
+import org.apache.poi.openxml4j.util.ZipSecureFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.FileSystemResource;
+
+import com.documentchecker.documcheck.service.ArchiveGuard.UnsafeArchiveException;
+import com.documentchecker.documcheck.service.docx.DocxBodyHandler;
+import com.documentchecker.documcheck.service.docx.DocxEngine;
+import com.documentchecker.documcheck.service.docx.DocxParagraph;
+import com.documentchecker.documcheck.service.docx.DocxTable;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Архивы из src/test/resources/archives, см. ArchiveFixtures
+class ArchiveGuardTest {
+
+    private static final long MAX_ENTRY_BYTES = 1 << 20;
+
+    private long poiMaxEntrySize;
+    private double poiMinInflateRatio;
+    private int poiTempFileThreshold;
+    private SimpleMeterRegistry registry;
+    private ArchiveGuard guard;
+
+    // ArchiveGuard меняет статические настройки POI - после теста они возвращаются
+    @BeforeEach
+    void setUp() {
+        poiMaxEntrySize = ZipSecureFile.getMaxEntrySize();
+        poiMinInflateRatio = ZipSecureFile.getMinInflateRatio();
+        poiTempFileThreshold = ZipInputStreamZipEntrySource.getThresholdBytesForTempFiles();
+        registry = new SimpleMeterRegistry();
+        guard = guard(256L << 20);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ZipSecureFile.setMaxEntrySize(poiMaxEntrySize);
+        ZipSecureFile.setMinInflateRatio(poiMinInflateRatio);
+        ZipInputStreamZipEntrySource.setThresholdBytesForTempFiles(poiTempFileThreshold);
+    }
+
+    @Test
+    void validDocumentPasses() throws Exception {
+        assertThatCode(() -> guard.checkDocument(fixture("valid.docx"))).doesNotThrowAnyException();
+        assertThatCode(() -> guard.checkDocument(Files.readAllBytes(fixture("valid.docx")))).doesNotThrowAnyException();
+        assertThat(registry.counter("documcheck.zip.rejected").count()).isZero();
+    }
+
+    @Test
+    void oversizedEntryIsRejected() {
+        assertRejected("oversized-entry.docx", "word/media/big.bin больше");
+    }
+
+    @Test
+    void overCompressedEntryIsRejected() {
+        assertRejected("over-compressed.docx", "сжата подозрительно сильно");
+    }
+
+    @Test
+    void tooManyEntriesAreRejected() {
+        assertRejected("too-many-entries.docx", "Слишком много частей");
+    }
+
+    @Test
+    void zip64IsRejected() {
+        assertRejected("zip64.docx", "ZIP64");
+    }
+
+    @Test
+    void notAZipIsRejected() {
+        assertRejected("not-a-zip.docx", "не является архивом");
+    }
+
+    @Test
+    void totalSizeIsLimitedForDocumentsButNotForBatches() throws Exception {
+        ArchiveGuard small = guard(10_000);
+        assertThatThrownBy(() -> small.checkDocument(fixture("valid.docx")))
+                .isInstanceOf(UnsafeArchiveException.class)
+                .hasMessageContaining("после распаковки");
+        assertThatCode(() -> small.checkBatch(fixture("valid.docx"))).doesNotThrowAnyException();
+    }
+
+    // Каталог занижает размер document.xml: проверка каталога это пропускает, но распаковка упирается в лимит
+    @Test
+    void falsifiedSizeIsStoppedWhileReading() throws Exception {
+        Path falsified = fixture("falsified-size.docx");
+        assertThatCode(() -> guard.checkDocument(falsified)).doesNotThrowAnyException();
+
+        assertThatThrownBy(() -> read(DocxEngine.STAX, falsified))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("word/document.xml больше " + MAX_ENTRY_BYTES);
+        assertThatThrownBy(() -> read(DocxEngine.POI, falsified)).isInstanceOf(Exception.class);
+    }
+
+    private ArchiveGuard guard(long maxTotalBytes) {
+        return new ArchiveGuard(MAX_ENTRY_BYTES, maxTotalBytes, 100, 50, 16 << 20, registry);
+    }
+
+    private void assertRejected(String name, String reason) {
+        assertThatThrownBy(() -> guard.checkDocument(fixture(name)))
+                .isInstanceOf(UnsafeArchiveException.class)
+                .hasMessageContaining(reason);
+        assertThat(registry.counter("documcheck.zip.rejected").count()).isEqualTo(1);
+    }
+
+    private static void read(DocxEngine engine, Path docx) throws Exception {
+        engine.reader().read(new FileSystemResource(docx), new DocxBodyHandler() {
+            @Override
+            public void startBody(List<String> headerLines, List<String> footerLines) {
+            }
+
+            @Override
+            public void paragraph(DocxParagraph paragraph) {
+            }
+
+            @Override
+            public void table(DocxTable table) {
+            }
+        });
+    }
+
+    private static Path fixture(String name) throws URISyntaxException {
+        return Path.of(ArchiveGuardTest.class.getResource("/archives/" + name).toURI());
+    }
+}
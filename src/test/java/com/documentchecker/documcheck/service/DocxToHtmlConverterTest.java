@@ -0,0 +1,84 @@
+package com.documentchecker.documcheck.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import com.documentchecker.documcheck.benchmark.SyntheticDocx;
+import com.documentchecker.documcheck.service.docx.DocxEngine;
+import com.documentchecker.documcheck.service.docx.DocxPageLayout;
+import com.documentchecker.documcheck.service.docx.DocxParagraph;
+import com.documentchecker.documcheck.service.docx.DocxReader;
+import com.documentchecker.documcheck.service.docx.DocxRun;
+import com.documentchecker.documcheck.service.docx.DocxTable;
+import com.documentchecker.documcheck.service.rule.GostRuleEngine;
+
+class DocxToHtmlConverterTest {
+
+    private final GostRuleEngine ruleEngine = GostRuleEngine.builtIn();
+    private final PictureStore pictureStore = new PictureStore(64L << 20);
+    private final TextMeasurer textMeasurer = new TextMeasurer();
+
+    // Параллельная вёрстка обязана давать тот же HTML и те же находки, что и последовательная
+    @Test
+    void parallelRenderingMatchesSequential() throws Exception {
+        // таблицы, вложенные списки до трёх уровней, картинки и несколько страниц
+        ByteArrayResource docx = new ByteArrayResource(SyntheticDocx.generate(400, 3, 9, 4, 3, 11));
+
+        DocxToHtmlConverter sequential = converter(0);
+        String sequentialHtml = sequential.convertDocxToHtmlWithErrors(docx, 1.25, 1.5, 14, DocxEngine.POI);
+        DocxToHtmlConverter parallel = converter(1);
+        String parallelHtml = parallel.convertDocxToHtmlWithErrors(docx, 1.25, 1.5, 14, DocxEngine.POI);
+
+        assertThat(sequentialHtml).contains("<table", "<ol", "<ul", "<img", "page-break");
+        assertThat(parallelHtml).isEqualTo(sequentialHtml);
+        assertThat(parallel.getFindings()).isNotEmpty().isEqualTo(sequential.getFindings());
+        assertThat(parallel.getPictureHashes()).isEqualTo(sequential.getPictureHashes());
+    }
+
+    // Поле страницы 300pt, каждый абзац - 90pt интервала перед ним и одна строка текста: на страницу входят два.
+    // Заголовки, пункты списка и таблицы считаются наравне с обычными абзацами
+    @Test
+    void pageBreaksFollowKnownLayout() throws Exception {
+        DocxReader reader = (source, handler) -> {
+            handler.pageLayout(new DocxPageLayout(12000, 6000, 1000, 1000, 0, 0));
+            handler.startBody(null, null);
+            handler.paragraph(paragraph(100, null, null, "p0"));
+            handler.paragraph(paragraph(101, null, null, "p1"));
+            handler.paragraph(paragraph(102, null, 1, "l2"));
+            handler.paragraph(paragraph(103, null, 1, "l3"));
+            handler.paragraph(paragraph(104, "Heading1", null, "h4"));
+            handler.table(new DocxTable(List.of(List.of(
+                    List.of(paragraph(105, null, null, "t5")), List.of(paragraph(106, null, null, "t6"))))));
+            handler.paragraph(paragraph(107, null, null, "p7"));
+        };
+        StringWriter out = new StringWriter();
+        converter(0).convertDocxToHtmlWithErrors(new ByteArrayResource(new byte[0]), 1.25, 1.5, 14, reader, out);
+
+        List<String> pages = Arrays.asList(out.toString().split("page-break"));
+        assertThat(pages).hasSize(4);
+        assertThat(pages.get(0)).contains("p0", "p1").doesNotContain("l2");
+        assertThat(pages.get(1)).contains("l2", "l3").doesNotContain("h4");
+        assertThat(pages.get(2)).contains("h4", "t5", "t6").doesNotContain("p7");
+        assertThat(pages.get(3)).contains("p7");
+        // разрыв внутри списка - отдельный пункт без номера, нумерация не сбивается
+        assertThat(pages.get(0)).endsWith("<li style='display:block'><div class='");
+    }
+
+    private static DocxParagraph paragraph(int bodyPosition, String styleId, Integer numId, String text) {
+        return new DocxParagraph(bodyPosition, styleId, null, -1, -1, 1.0, 1800, 0, numId, numId != null ? 0 : -1,
+                numId != null ? "decimal" : null, text,
+                List.of(new DocxRun(text, 14, "Times New Roman", false, false, false, List.of())));
+    }
+
+    private DocxToHtmlConverter converter(int parallelMinElements) {
+        DocxToHtmlConverter converter = new DocxToHtmlConverter(ruleEngine, pictureStore, textMeasurer);
+        converter.setParallelRendering(parallelMinElements);
+        return converter;
+    }
+}
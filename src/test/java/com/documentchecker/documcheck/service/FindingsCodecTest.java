@@ -0,0 +1,56 @@
+package com.documentchecker.documcheck.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class FindingsCodecTest {
+
+    private static final List<CheckFinding> FINDINGS = List.of(
+            new CheckFinding(5, 0, 2, 10, 42, "font-size", "13", "14", "Неверный размер шрифта: 13pt (ожидается 14pt)"),
+            // нарушение абзаца: run, start и end равны -1, значений нет
+            new CheckFinding(5, 0, -1, -1, -1, "heading-alignment", null, null, "Заголовок должен быть по центру"),
+            // номер элемента уменьшается: в кодировке отрицательная разница
+            new CheckFinding(1, 3, 0, 0, 7, "font-family", "Arial", null, "Неверный шрифт: Arial"),
+            new CheckFinding(100_000, 1, 300, 70_000, 70_500, "font-size", null, "14", "Неверный размер шрифта: 13pt (ожидается 14pt)"));
+
+    @Test
+    void roundTrip() {
+        assertThat(FindingsCodec.decode(FindingsCodec.encode(FINDINGS))).isEqualTo(FINDINGS);
+    }
+
+    @Test
+    void emptyList() {
+        assertThat(FindingsCodec.decode(FindingsCodec.encode(List.of()))).isEmpty();
+    }
+
+    @Test
+    void repeatedStringsAreStoredOnce() {
+        List<CheckFinding> one = FINDINGS.subList(0, 1);
+        List<CheckFinding> repeated = Collections.nCopies(1000, FINDINGS.get(0));
+        assertThat(FindingsCodec.encode(repeated).length).isLessThan(FindingsCodec.encode(one).length + 1000 * 16);
+    }
+
+    @Test
+    void truncatedInputIsRejected() {
+        byte[] encoded = FindingsCodec.encode(FINDINGS);
+        for (int length = 0; length < encoded.length; length++) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThatThrownBy(() -> FindingsCodec.decode(truncated))
+                    .as("длина %d", length)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        byte[] encoded = FindingsCodec.encode(FINDINGS);
+        encoded[3] = '2';
+        assertThatThrownBy(() -> FindingsCodec.decode(encoded)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,118 @@
+package com.documentchecker.documcheck.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.documentchecker.documcheck.dto.HistoryItem;
+import com.documentchecker.documcheck.dto.HistoryPage;
+import com.documentchecker.documcheck.dto.HistoryReport;
+import com.documentchecker.documcheck.model.Role;
+import com.documentchecker.documcheck.model.User;
+import com.documentchecker.documcheck.repository.UserRepository;
+
+@SpringBootTest
+class HistoryServiceTest {
+
+    private static final LocalDateTime SHARED = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = newUser();
+    }
+
+    // Страница заканчивается посреди строк с одинаковым date_time: порядок по id не даёт ни повторов, ни пропусков
+    @Test
+    void pagesWithSharedDateTimeHaveNoDuplicatesOrGaps() {
+        List<Long> expected = new ArrayList<>();
+        expected.add(insert(SHARED.plusMinutes(1)));
+        List<Long> shared = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            shared.add(insert(SHARED));
+        }
+        Collections.reverse(shared);
+        expected.addAll(shared);
+        expected.add(insert(SHARED.minusMinutes(1)));
+
+        for (int size = 1; size <= expected.size() + 1; size++) {
+            assertThat(readAll(size)).as("страницы по %d", size).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void otherUsersRowsAreNotListed() {
+        Long own = insert(SHARED);
+        Long owner = userId;
+        userId = newUser();
+        insert(SHARED);
+
+        assertThat(historyService.page(owner, null, 10).items()).extracting(HistoryItem::id).containsExactly(own);
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertThatThrownBy(() -> historyService.page(userId, "не-курсор", 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void recordedReportIsReadBack() {
+        List<CheckFinding> findings = List.of(
+                new CheckFinding(1, 0, 0, 0, 5, "font-size", "12", "14", "Неверный размер шрифта: 12pt (ожидается 14pt)"));
+        historyService.record(userId, "report.docx", new CheckReport("ab".repeat(32), findings));
+        historyService.flush();
+
+        HistoryItem item = historyService.page(userId, null, 10).items().get(0);
+        HistoryReport report = historyService.report(userId, item.id()).orElseThrow();
+        assertThat(report.documentName()).isEqualTo("report.docx");
+        assertThat(report.count()).isEqualTo(1);
+        assertThat(report.findings()).isEqualTo(findings);
+    }
+
+    private List<Long> readAll(int size) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            HistoryPage page = historyService.page(userId, cursor, size);
+            assertThat(page.items()).hasSizeLessThanOrEqualTo(size);
+            page.items().forEach(item -> ids.add(item.id()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private Long newUser() {
+        return userRepository.save(User.builder()
+                .username("history-" + System.nanoTime())
+                .password("-")
+                .role(Role.ROLE_USER)
+                .build()).getId();
+    }
+
+    private Long insert(LocalDateTime dateTime) {
+        jdbcTemplate.update("insert into history (document_name, date_time, user_id, findings_count) values (?, ?, ?, 0)",
+                "document.docx", Timestamp.valueOf(dateTime), userId);
+        return jdbcTemplate.queryForObject("select max(id) from history where user_id = ?", Long.class, userId);
+    }
+}
@@ -0,0 +1,73 @@
+package com.documentchecker.documcheck.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import javax.crypto.SecretKey;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JwtServiceTest {
+
+    private final SecretKey key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtService jwtService = new JwtService(Encoders.BASE64.encode(key.getEncoded()), 100, meterRegistry);
+    private final UserDetails user = User.withUsername("alice").password("-").roles("USER").build();
+
+    @Test
+    void validTokenIsVerifiedOnceAndCached() {
+        String token = jwtService.generateToken(user);
+
+        assertThat(jwtService.verifiedClaims(token).getSubject()).isEqualTo("alice");
+        assertThat(jwtService.isTokenValid(token, user)).isTrue();
+        assertThat(cachedClaims()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "documcheck.jwt-claims").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    // Подменённый subject при старой подписи: токен отклоняется и не попадает в кэш
+    @Test
+    void tamperedTokenIsRejectedAndNotCached() {
+        String[] parts = jwtService.generateToken(user).split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                .replace("\"alice\"", "\"admin\"");
+        String tampered = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+
+        assertThatThrownBy(() -> jwtService.verifiedClaims(tampered)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> jwtService.verifiedClaims(tampered)).isInstanceOf(JwtException.class);
+        assertThat(cachedClaims()).isZero();
+    }
+
+    @Test
+    void expiredTokenFails() {
+        String expired = Jwts.builder()
+                .setSubject("alice")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 120_000))
+                .setExpiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThatThrownBy(() -> jwtService.verifiedClaims(expired)).isInstanceOf(ExpiredJwtException.class);
+        assertThatThrownBy(() -> jwtService.isTokenValid(expired, user)).isInstanceOf(ExpiredJwtException.class);
+        assertThat(cachedClaims()).isZero();
+    }
+
+    private double cachedClaims() {
+        return meterRegistry.get("cache.size").tag("cache", "documcheck.jwt-claims").gauge().value();
+    }
+}
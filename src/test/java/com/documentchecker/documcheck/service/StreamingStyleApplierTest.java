@@ -0,0 +1,154 @@
+package com.documentchecker.documcheck.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.poi.xwpf.usermodel.IBodyElement;
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTPageMar;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTSectPr;
+
+import com.documentchecker.documcheck.benchmark.SyntheticDocx;
+
+// Потоковая запись обязана дать тот же документ, что StyleApplier через POI
+class StreamingStyleApplierTest {
+
+    private static final String DOCUMENT_PART = "word/document.xml";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void syntheticDocumentMatchesPoi() throws Exception {
+        assertSameAsPoi(SyntheticDocx.generate(120, 3, 10, 7, 2, 25));
+    }
+
+    // Абзацы без свойств, частично заданные свойства и тело без w:sectPr
+    @Test
+    void partialPropertiesMatchPoi() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XWPFDocument document = new XWPFDocument()) {
+            document.createParagraph().createRun().setText("без свойств");
+            XWPFParagraph partial = document.createParagraph();
+            partial.setAlignment(ParagraphAlignment.RIGHT);
+            partial.setSpacingBefore(240);
+            partial.setIndentationLeft(360);
+            XWPFRun run = partial.createRun();
+            run.setText("жирный красный");
+            run.setBold(true);
+            run.setColor("FF0000");
+            partial.createRun().setText(" обычный");
+            document.createParagraph();
+            XWPFTable table = document.createTable(1, 2);
+            table.getRow(0).getCell(0).setText("ячейка");
+            document.write(out);
+        }
+        assertSameAsPoi(out.toByteArray());
+    }
+
+    private void assertSameAsPoi(byte[] docx) throws Exception {
+        ByteArrayOutputStream poi = new ByteArrayOutputStream();
+        try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(docx))) {
+            StyleApplier.applyGostStyles(document, 14);
+            document.write(poi);
+        }
+        Path source = Files.write(dir.resolve("source.docx"), docx);
+        ByteArrayOutputStream streaming = new ByteArrayOutputStream();
+        StreamingStyleApplier.applyGostStyles(source, 14, streaming);
+
+        try (XWPFDocument expected = new XWPFDocument(new ByteArrayInputStream(poi.toByteArray()));
+                XWPFDocument actual = new XWPFDocument(new ByteArrayInputStream(streaming.toByteArray()))) {
+            List<XWPFParagraph> expectedParagraphs = paragraphs(expected.getBodyElements());
+            List<XWPFParagraph> actualParagraphs = paragraphs(actual.getBodyElements());
+            assertThat(actualParagraphs).hasSameSizeAs(expectedParagraphs);
+            for (int i = 0; i < expectedParagraphs.size(); i++) {
+                XWPFParagraph e = expectedParagraphs.get(i);
+                XWPFParagraph a = actualParagraphs.get(i);
+                assertThat(paragraphFormat(a)).as("абзац %d", i).isEqualTo(paragraphFormat(e));
+                assertThat(a.getRuns()).as("прогоны абзаца %d", i).hasSameSizeAs(e.getRuns());
+                for (int j = 0; j < e.getRuns().size(); j++) {
+                    assertThat(runFormat(a.getRuns().get(j))).as("абзац %d, прогон %d", i, j)
+                            .isEqualTo(runFormat(e.getRuns().get(j)));
+                }
+            }
+            assertThat(pageMargins(actual)).isEqualTo(pageMargins(expected));
+        }
+
+        Map<String, byte[]> original = entries(docx);
+        Map<String, byte[]> rewritten = entries(streaming.toByteArray());
+        assertThat(rewritten.keySet()).containsExactlyElementsOf(original.keySet());
+        for (Map.Entry<String, byte[]> entry : original.entrySet()) {
+            if (!DOCUMENT_PART.equals(entry.getKey())) {
+                assertThat(rewritten.get(entry.getKey())).as(entry.getKey()).isEqualTo(entry.getValue());
+            }
+        }
+    }
+
+    // Абзацы тела и ячеек таблиц по порядку: в ячейках оба способа не должны ничего менять
+    private static List<XWPFParagraph> paragraphs(List<IBodyElement> elements) {
+        List<XWPFParagraph> paragraphs = new ArrayList<>();
+        for (IBodyElement element : elements) {
+            if (element instanceof XWPFParagraph paragraph) {
+                paragraphs.add(paragraph);
+            } else if (element instanceof XWPFTable table) {
+                for (XWPFTableRow row : table.getRows()) {
+                    for (XWPFTableCell cell : row.getTableCells()) {
+                        paragraphs.addAll(paragraphs(cell.getBodyElements()));
+                    }
+                }
+            }
+        }
+        return paragraphs;
+    }
+
+    private static List<Object> paragraphFormat(XWPFParagraph p) {
+        return List.of(p.getText(), String.valueOf(p.getAlignment()), p.getSpacingBetween(), String.valueOf(p.getSpacingLineRule()),
+                p.getSpacingBefore(), p.getSpacingAfter(), p.getIndentationFirstLine(), p.getIndentationLeft(),
+                p.getIndentationRight(), p.getIndentationHanging());
+    }
+
+    private static List<Object> runFormat(XWPFRun r) {
+        return List.of(String.valueOf(r.text()), String.valueOf(r.getFontFamily()), String.valueOf(r.getFontSizeAsDouble()),
+                String.valueOf(r.getColor()), r.isBold(), r.isItalic());
+    }
+
+    private static List<String> pageMargins(XWPFDocument document) {
+        CTSectPr sectPr = document.getDocument().getBody().getSectPr();
+        CTPageMar pgMar = sectPr != null ? sectPr.getPgMar() : null;
+        if (pgMar == null) {
+            return List.of();
+        }
+        return List.of(String.valueOf(pgMar.getLeft()), String.valueOf(pgMar.getRight()), String.valueOf(pgMar.getTop()),
+                String.valueOf(pgMar.getBottom()), String.valueOf(pgMar.getHeader()), String.valueOf(pgMar.getFooter()),
+                String.valueOf(pgMar.getGutter()));
+    }
+
+    private static Map<String, byte[]> entries(byte[] docx) throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(docx))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        return entries;
+    }
+}
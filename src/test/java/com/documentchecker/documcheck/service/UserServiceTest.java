@@ -0,0 +1,57 @@
+package com.documentchecker.documcheck.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.documentchecker.documcheck.model.Role;
+import com.documentchecker.documcheck.model.User;
+import com.documentchecker.documcheck.repository.UserRepository;
+
+@SpringBootTest
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String username;
+
+    @BeforeEach
+    void setUp() {
+        username = "cached-" + System.nanoTime();
+        userRepository.save(User.builder().username(username).password("old").role(Role.ROLE_USER).build());
+    }
+
+    // Изменение мимо UserService видно только после evict
+    @Test
+    void evictReloadsUser() {
+        assertThat(userService.cachedUserDetails(username).getPassword()).isEqualTo("old");
+        changePasswordInDatabase("new");
+        assertThat(userService.cachedUserDetails(username).getPassword()).isEqualTo("old");
+
+        userService.evict(username);
+
+        assertThat(userService.cachedUserDetails(username).getPassword()).isEqualTo("new");
+    }
+
+    @Test
+    void rehashEvictsCachedUser() {
+        assertThat(userService.cachedUserDetails(username).getPassword()).isEqualTo("old");
+
+        userService.updatePassword(userService.cachedUserDetails(username), "rehashed");
+
+        assertThat(userService.cachedUserDetails(username).getPassword()).isEqualTo("rehashed");
+    }
+
+    private void changePasswordInDatabase(String password) {
+        User user = userRepository.findByUsername(username).orElseThrow();
+        user.setPassword(password);
+        userRepository.save(user);
+    }
+}
@@ -0,0 +1,145 @@
+package com.documentchecker.documcheck.service.docx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import com.documentchecker.documcheck.benchmark.SyntheticDocx;
+
+// Оба движка должны отдавать обработчику одно и то же: от этого зависит, что выбор движка не меняет результат проверки
+class DocxReaderParityTest {
+
+    private static class Captured implements DocxBodyHandler {
+        DocxPageLayout layout;
+        int numberingSize;
+        List<String> headerLines;
+        List<String> footerLines;
+        final List<Object> elements = new ArrayList<>();
+
+        @Override
+        public void pageLayout(DocxPageLayout layout) {
+            this.layout = layout;
+        }
+
+        @Override
+        public void numbering(DocxNumbering numbering) {
+            this.numberingSize = numbering.size();
+        }
+
+        @Override
+        public void startBody(List<String> headerLines, List<String> footerLines) {
+            this.headerLines = headerLines;
+            this.footerLines = footerLines;
+        }
+
+        @Override
+        public void paragraph(DocxParagraph paragraph) {
+            elements.add(comparable(paragraph));
+        }
+
+        @Override
+        public void table(DocxTable table) {
+            elements.add(new DocxTable(table.rows().stream()
+                    .map(row -> row.stream()
+                            .map(cell -> cell.stream().map(Captured::comparable).toList())
+                            .toList())
+                    .toList()));
+        }
+
+        // у record с byte[] equals сравнивает ссылки, поэтому картинки заменяются содержимым в виде строки
+        private static DocxParagraph comparable(DocxParagraph p) {
+            List<DocxRun> runs = p.runs().stream()
+                    .map(r -> new DocxRun(r.text(), r.fontSize(), r.fontFamily(), r.bold(), r.italic(), r.underline(),
+                            r.pictures().stream()
+                                    .map(picture -> new DocxPicture(null, picture.extension() + ":" + Arrays.hashCode(picture.data())))
+                                    .toList()))
+                    .toList();
+            return new DocxParagraph(p.bodyPosition(), p.styleId(), p.alignment(), p.firstLineIndent(),
+                    p.styleFirstLineIndent(), p.spacingBetween(), p.spacingBefore(), p.spacingAfter(), p.numId(),
+                    p.numIlvl(), p.numFmt(), p.text(), runs);
+        }
+    }
+
+    @Test
+    void poiAndStaxReadTheSameDocument() throws Exception {
+        ByteArrayResource docx = new ByteArrayResource(SyntheticDocx.generate(300, 3, 10, 7, 2, 25));
+
+        Captured poi = read(DocxEngine.POI, docx);
+        Captured stax = read(DocxEngine.STAX, docx);
+
+        assertThat(poi.elements).hasSize(300);
+        assertThat(stax.layout).isEqualTo(poi.layout);
+        assertThat(stax.numberingSize).isEqualTo(poi.numberingSize);
+        assertThat(stax.headerLines).isEqualTo(poi.headerLines);
+        assertThat(stax.footerLines).isEqualTo(poi.footerLines);
+        for (int i = 0; i < poi.elements.size(); i++) {
+            assertThat(stax.elements.get(i)).as("элемент %d", i).isEqualTo(poi.elements.get(i));
+        }
+        assertThat(stax.elements).hasSameSizeAs(poi.elements);
+    }
+
+    // В w:sectPrChange лежат прежние размеры страницы; читать нужно текущие, как POI
+    @Test
+    void trackedSectionChangeKeepsCurrentLayout() throws Exception {
+        String section = "<w:sectPr><w:pgSz w:w=\"16838\" w:h=\"11906\"/>"
+                + "<w:pgMar w:top=\"1000\" w:right=\"1100\" w:bottom=\"1200\" w:left=\"1300\"/>"
+                + "<w:sectPrChange w:id=\"1\" w:author=\"test\" w:date=\"2024-01-01T00:00:00Z\">"
+                + "<w:sectPr><w:pgSz w:w=\"11906\" w:h=\"16838\"/>"
+                + "<w:pgMar w:top=\"500\" w:right=\"500\" w:bottom=\"500\" w:left=\"500\"/></w:sectPr>"
+                + "</w:sectPrChange></w:sectPr>";
+        ByteArrayResource docx = new ByteArrayResource(withBodySection(SyntheticDocx.generate(20, 2, 0, 0, 0, 0), section));
+
+        DocxPageLayout expected = new DocxPageLayout(16838, 11906, 1300, 1100, 1000, 1200);
+        assertThat(read(DocxEngine.POI, docx).layout).isEqualTo(expected);
+        assertThat(read(DocxEngine.STAX, docx).layout).isEqualTo(expected);
+    }
+
+    // Другой префикс пространства имён и одинарные кавычки - тот же w:sectPr для любого XML-читателя
+    @Test
+    void sectionWithOtherPrefixAndQuotesIsRead() throws Exception {
+        String section = "<x:sectPr xmlns:x='http://schemas.openxmlformats.org/wordprocessingml/2006/main'>"
+                + "<x:pgSz x:w='16838' x:h='11906'/>"
+                + "<x:pgMar x:top='1000' x:right='1100' x:bottom='1200' x:left='1300'/></x:sectPr>";
+        ByteArrayResource docx = new ByteArrayResource(withBodySection(SyntheticDocx.generate(20, 2, 0, 0, 0, 0), section));
+
+        DocxPageLayout expected = new DocxPageLayout(16838, 11906, 1300, 1100, 1000, 1200);
+        assertThat(read(DocxEngine.STAX, docx).layout).isEqualTo(expected);
+        assertThat(read(DocxEngine.POI, docx).layout).isEqualTo(expected);
+    }
+
+    private static byte[] withBodySection(byte[] docx, String section) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(docx));
+                ZipOutputStream zip = new ZipOutputStream(out)) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                byte[] data = in.readAllBytes();
+                if (entry.getName().equals("word/document.xml")) {
+                    String xml = new String(data, StandardCharsets.UTF_8).replaceAll("<w:sectPr.*</w:sectPr>", "");
+                    data = xml.replace("</w:body>", section + "</w:body>").getBytes(StandardCharsets.UTF_8);
+                }
+                zip.putNextEntry(new ZipEntry(entry.getName()));
+                zip.write(data);
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static Captured read(DocxEngine engine, ByteArrayResource docx) throws Exception {
+        Captured captured = new Captured();
+        engine.reader().read(docx, captured);
+        return captured;
+    }
+}
@@ -0,0 +1,88 @@
+package com.documentchecker.documcheck.service.rule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import com.documentchecker.documcheck.benchmark.SyntheticDocx;
+import com.documentchecker.documcheck.service.docx.DocxDocument;
+import com.documentchecker.documcheck.service.docx.DocxEngine;
+import com.documentchecker.documcheck.service.docx.DocxParagraph;
+import com.documentchecker.documcheck.service.docx.DocxRun;
+import com.documentchecker.documcheck.service.docx.DocxTable;
+
+// Проверка по столбцам - вторая реализация каждого правила; она должна находить ровно то же, что checkRun и checkParagraph
+class GostRuleSetTest {
+
+    @Test
+    void columnarCheckMatchesPerElementCheck() throws Exception {
+        DocxDocument document = new DocxDocument();
+        DocxEngine.STAX.reader().read(new ByteArrayResource(SyntheticDocx.generate(200, 3, 10, 7, 2, 25)), document);
+        List<Object> elements = new ArrayList<>(document.elements());
+        // размер, шрифт, интервал и отступ не заданы
+        DocxParagraph unset = paragraph(null, -1, -1, -1, new DocxRun("текст", -1, null, false, false, false, List.of()));
+        DocxParagraph wrong = paragraph(ParagraphAlignment.RIGHT, 300, -1, 1.0,
+                new DocxRun("текст", 12, "Arial", false, false, false, List.of()),
+                new DocxRun("текст", 14, "Times New Roman", false, false, false, List.of()));
+        elements.add(unset);
+        elements.add(wrong);
+        elements.add(new DocxTable(List.of(List.of(List.of(unset, wrong), List.of()), List.of(List.of(wrong)))));
+
+        GostRuleSet ruleSet = GostRuleEngine.builtIn().ruleSet(14, 1.25, 1.5);
+        RuleViolations violations = ruleSet.check(FormatColumns.of(elements));
+
+        int paragraphIndex = 0;
+        int runIndex = 0;
+        int found = 0;
+        for (DocxParagraph paragraph : flatten(elements)) {
+            for (RuleScope scope : List.of(RuleScope.PARAGRAPH, RuleScope.HEADING)) {
+                List<RuleViolation> expected = new ArrayList<>();
+                ruleSet.checkParagraph(scope, paragraph, expected);
+                List<RuleViolation> actual = new ArrayList<>();
+                violations.paragraphErrors(scope, paragraphIndex, actual);
+                assertThat(actual).as("абзац %d, %s", paragraphIndex, scope).isEqualTo(expected);
+                found += expected.size();
+            }
+            for (DocxRun run : paragraph.runs()) {
+                List<RuleViolation> expected = new ArrayList<>();
+                ruleSet.checkRun(run, expected);
+                List<RuleViolation> actual = new ArrayList<>();
+                violations.runErrors(runIndex, actual);
+                assertThat(actual).as("прогон %d", runIndex).isEqualTo(expected);
+                found += expected.size();
+                runIndex++;
+            }
+            paragraphIndex++;
+        }
+        assertThat(paragraphIndex).isEqualTo(violations.columns().paragraphCount());
+        assertThat(runIndex).isEqualTo(violations.columns().runCount());
+        assertThat(found).isPositive();
+    }
+
+    private static List<DocxParagraph> flatten(List<Object> elements) {
+        List<DocxParagraph> paragraphs = new ArrayList<>();
+        for (Object element : elements) {
+            if (element instanceof DocxParagraph paragraph) {
+                paragraphs.add(paragraph);
+            } else {
+                for (List<List<DocxParagraph>> row : ((DocxTable) element).rows()) {
+                    for (List<DocxParagraph> cell : row) {
+                        paragraphs.addAll(cell);
+                    }
+                }
+            }
+        }
+        return paragraphs;
+    }
+
+    private static DocxParagraph paragraph(ParagraphAlignment alignment, int firstLineIndent, int styleFirstLineIndent,
+            double spacing, DocxRun... runs) {
+        return new DocxParagraph(0, null, alignment, firstLineIndent, styleFirstLineIndent, spacing, 0, 0, null, 0, null,
+                "текст", List.of(runs));
+    }
+}
@@ -0,0 +1,96 @@
+package com.documentchecker.documcheck.service.rule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
+import org.junit.jupiter.api.Test;
+
+class GostRulesTest {
+
+    private static final GostProfile PROFILE = new GostProfile(14, 1.25, 1.5);
+    // 1.25 см - 708.75 твипа, допуск 40 твипов в обе стороны
+    private static final int INDENT_TWIPS = 709;
+
+    @Test
+    void fontSize() {
+        CompiledRule rule = new FontSizeRule().compile(PROFILE);
+        assertThat(rule.check(FormatValues.ofRun(14, null))).isNull();
+        // не задан - наследуется от стиля, не нарушение
+        assertThat(rule.check(FormatValues.ofRun(-1, null))).isNull();
+
+        RuleViolation violation = rule.check(FormatValues.ofRun(12, null));
+        assertThat(violation).isEqualTo(new RuleViolation("font-size", "12", "14",
+                "Неверный размер шрифта: 12pt (ожидается 14pt)"));
+    }
+
+    @Test
+    void fontFamily() {
+        CompiledRule rule = new FontFamilyRule().compile(PROFILE);
+        assertThat(rule.check(FormatValues.ofRun(14, "Times New Roman"))).isNull();
+        assertThat(rule.check(FormatValues.ofRun(14, "times new roman"))).isNull();
+        assertThat(rule.check(FormatValues.ofRun(14, null))).isNull();
+
+        assertThat(rule.check(FormatValues.ofRun(14, "Arial")))
+                .isEqualTo(new RuleViolation("font-family", "Arial", "Times New Roman", "Неверный шрифт: Arial"));
+    }
+
+    @Test
+    void headingAlignment() {
+        CompiledRule rule = new HeadingAlignmentRule().compile(PROFILE);
+        assertThat(rule.check(paragraph(ParagraphAlignment.CENTER, INDENT_TWIPS, 1.5))).isNull();
+
+        assertThat(rule.check(paragraph(ParagraphAlignment.LEFT, INDENT_TWIPS, 1.5)))
+                .isEqualTo(new RuleViolation("heading-alignment", "LEFT", "CENTER", "Заголовок не выровнен по центру"));
+        // выравнивание не задано - по умолчанию в Word это левый край
+        assertThat(rule.check(paragraph(null, INDENT_TWIPS, 1.5)).actual()).isNull();
+    }
+
+    @Test
+    void textAlignment() {
+        CompiledRule rule = new TextAlignmentRule().compile(PROFILE);
+        assertThat(rule.check(paragraph(ParagraphAlignment.BOTH, INDENT_TWIPS, 1.5))).isNull();
+
+        assertThat(rule.check(paragraph(ParagraphAlignment.CENTER, INDENT_TWIPS, 1.5)))
+                .isEqualTo(new RuleViolation("text-alignment", "CENTER", "BOTH", "Текст не выровнен по ширине"));
+        assertThat(rule.check(paragraph(null, INDENT_TWIPS, 1.5))).isNotNull();
+    }
+
+    @Test
+    void firstLineIndentAllowsTolerance() {
+        CompiledRule rule = new FirstLineIndentRule().compile(PROFILE);
+        assertThat(rule.check(paragraph(ParagraphAlignment.BOTH, INDENT_TWIPS, 1.5))).isNull();
+        assertThat(rule.check(paragraph(ParagraphAlignment.BOTH, INDENT_TWIPS - 39, 1.5))).isNull();
+        assertThat(rule.check(paragraph(ParagraphAlignment.BOTH, INDENT_TWIPS + 39, 1.5))).isNull();
+
+        assertThat(rule.check(paragraph(ParagraphAlignment.BOTH, INDENT_TWIPS + 80, 1.5)))
+                .isEqualTo(new RuleViolation("first-line-indent", "789", "709",
+                        "Неверный отступ первой строки: 789 (ожидается ~1.25см)"));
+        // отступа нет ни в абзаце, ни в стиле
+        assertThat(rule.check(paragraph(ParagraphAlignment.BOTH, -1, 1.5))).isNotNull();
+    }
+
+    @Test
+    void lineSpacing() {
+        CompiledRule rule = new LineSpacingRule().compile(PROFILE);
+        assertThat(rule.check(paragraph(ParagraphAlignment.BOTH, INDENT_TWIPS, 1.5))).isNull();
+        // не задан в абзаце - наследуется, не нарушение
+        assertThat(rule.check(paragraph(ParagraphAlignment.BOTH, INDENT_TWIPS, -1))).isNull();
+
+        assertThat(rule.check(paragraph(ParagraphAlignment.BOTH, INDENT_TWIPS, 1.0)))
+                .isEqualTo(new RuleViolation("line-spacing", "1.0", "1.5", "Неверный межстрочный интервал: 1.0 (ожидается 1.5)"));
+    }
+
+    @Test
+    void scopesOfBuiltInRules() {
+        assertThat(new FontSizeRule().scope()).isEqualTo(RuleScope.RUN);
+        assertThat(new FontFamilyRule().scope()).isEqualTo(RuleScope.RUN);
+        assertThat(new HeadingAlignmentRule().scope()).isEqualTo(RuleScope.HEADING);
+        assertThat(new TextAlignmentRule().scope()).isEqualTo(RuleScope.PARAGRAPH);
+        assertThat(new FirstLineIndentRule().scope()).isEqualTo(RuleScope.PARAGRAPH);
+        assertThat(new LineSpacingRule().scope()).isEqualTo(RuleScope.PARAGRAPH);
+    }
+
+    private static FormatValues paragraph(ParagraphAlignment alignment, int firstLineIndent, double lineSpacing) {
+        return FormatValues.ofParagraph(alignment, firstLineIndent, lineSpacing);
+    }
+}